@@ -0,0 +1,64 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.util.CurrencyRegistry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a full provider rate table with the streaming {@link JsonRates} reader the providers use,
+ * against binding the same document to a map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRatesBenchmark {
+
+    private static final int CURRENCIES = 160;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] document;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder json = new StringBuilder("{\"result\":\"success\",\"base_code\":\"USD\",");
+        json.append("\"time_last_update_unix\":1704153601,\"rates\":{");
+        for (int i = 0; i < CURRENCIES; i++) {
+            json.append(i > 0 ? "," : "").append('"').append(CurrencyRegistry.code(i)).append("\":")
+                    .append(0.5 + i * 1.234567);
+        }
+        document = json.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public double[] streaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(document)) {
+            parser.nextToken();
+            return JsonRates.read(parser, "rates");
+        }
+    }
+
+    @Benchmark
+    public Map<?, ?> mapBinding() throws IOException {
+        return (Map<?, ?>) objectMapper.readValue(document, Map.class).get("rates");
+    }
+
+}
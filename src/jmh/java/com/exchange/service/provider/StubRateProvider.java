@@ -0,0 +1,72 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.util.CurrencyRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provider answering at once with a fixed table, for benchmarks that must not touch the network.
+ */
+public final class StubRateProvider implements RateProvider {
+
+    private final String name;
+    private final double weight;
+    private final double[] rates;
+
+    /**
+     * Creates a provider whose table has a rate for the first registered currencies.
+     *
+     * @param name provider name
+     * @param weight weight in the average
+     * @param currencies number of currencies with a rate
+     */
+    public StubRateProvider(final String name, final double weight, final int currencies) {
+        this.name = name;
+        this.weight = weight;
+        this.rates = new double[CurrencyRegistry.size()];
+        Arrays.fill(rates, Double.NaN);
+        for (int i = 0; i < currencies; i++) {
+            rates[i] = 0.5 + i * weight;
+        }
+    }
+
+    /**
+     * Gets the table the provider answers with.
+     */
+    public double[] getRates() {
+        return rates;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return name;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return Duration.ofSeconds(1);
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    @Override
+    public ProviderCapabilities getCapabilities() {
+        return ProviderCapabilities.builder().fullTable(true).build();
+    }
+
+    @Override
+    public CompletableFuture<double[]> fetchRates(final String base) {
+        return CompletableFuture.completedFuture(rates);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.exchange.service.service;
+
+import com.exchange.service.provider.RateProvider;
+import com.exchange.service.provider.StubRateProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures averaging full provider tables into one rate table. Providers cover a different number of
+ * currencies, so part of the symbols are missing from some tables as they are in practice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AverageRatesBenchmark {
+
+    @Param({"2", "5"})
+    private int providerCount;
+
+    private final List<RateProvider> providers = new ArrayList<>();
+    private final List<double[]> results = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < providerCount; i++) {
+            final StubRateProvider provider = new StubRateProvider("stub-" + i, 1 + i * 0.5, 160 - i * 10);
+            providers.add(provider);
+            results.add(provider.getRates());
+        }
+    }
+
+    @Benchmark
+    public double[] calculateAverageRates() {
+        return ExchangeRateService.calculateAverageRates(providers, results);
+    }
+
+}
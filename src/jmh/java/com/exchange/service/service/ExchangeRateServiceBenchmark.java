@@ -0,0 +1,108 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.EncodedResponse;
+import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.provider.ProviderLatencies;
+import com.exchange.service.provider.ProviderRegistry;
+import com.exchange.service.provider.ProviderResilience;
+import com.exchange.service.provider.StubRateProvider;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.RequestTiming;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures a request answered from the rate table cache, with two stub providers behind the service:
+ * building the response object, and serving the pre-encoded bytes of {@link ResponseCache}
+ * as the endpoint does. The cache is filled once before measuring, so no provider is called.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateServiceBenchmark {
+
+    private static final String[] CODES = {
+        "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "NZD", "SEK", "NOK", "DKK",
+        "PLN", "CZK", "HUF", "RON", "BGN", "TRY", "ILS", "ZAR", "BRL", "MXN",
+        "CNY", "HKD", "SGD", "KRW", "INR", "IDR", "MYR", "PHP", "THB", "ISK",
+    };
+
+    @Param({"1", "10", "30"})
+    private int symbols;
+
+    private ExchangeRateService exchangeRateService;
+    private ResponseCache responseCache;
+    private RateKey key;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        final MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+        metricsService.init();
+        final ProviderRegistry providerRegistry = new ProviderRegistry(List.of(
+                new StubRateProvider("first", 1.0, 160),
+                new StubRateProvider("second", 0.5, 150)), metricsService);
+        providerRegistry.init();
+
+        final ProviderResilience providerResilience = new ProviderResilience(new ProviderLatencies(), metricsService);
+        ReflectionTestUtils.setField(providerResilience, "windowSize", 20);
+        ReflectionTestUtils.setField(providerResilience, "minimumCalls", 10);
+        ReflectionTestUtils.setField(providerResilience, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(providerResilience, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(providerResilience, "halfOpenProbes", 2);
+
+        final Cache<String, RateTable> rateTableCache = Caffeine.newBuilder().maximumSize(200).build();
+        exchangeRateService = new ExchangeRateService(providerRegistry, providerResilience, metricsService,
+                rateTableCache, event -> { }, new HistoricalRateStore());
+        ReflectionTestUtils.setField(exchangeRateService, "cacheTtlMs", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(exchangeRateService, "hardTtlMs", Duration.ofHours(2).toMillis());
+
+        responseCache = new ResponseCache(exchangeRateService, new ObjectMapper().findAndRegisterModules(),
+                new MappingJackson2CborHttpMessageConverter());
+        ReflectionTestUtils.setField(responseCache, "cacheSize", 10000);
+        responseCache.init();
+
+        query = String.join(",", Arrays.copyOf(CODES, symbols));
+        key = RateKey.of("USD", query);
+        exchangeRateService.getExchangeRatesAsync(key).join();
+        responseCache.getExchangeRatesAsync("USD", query, RequestTiming.NONE).join();
+    }
+
+    @Benchmark
+    public ExchangeRateResponse buildResponse() {
+        return exchangeRateService.getExchangeRatesAsync(key).join();
+    }
+
+    @Benchmark
+    public EncodedResponse encodedResponse() {
+        return responseCache.getExchangeRatesAsync("USD", query, RequestTiming.start()).join();
+    }
+
+}
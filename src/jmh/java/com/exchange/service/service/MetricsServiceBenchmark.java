@@ -0,0 +1,70 @@
+package com.exchange.service.service;
+
+import com.exchange.service.util.RequestTiming;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures the metrics recorded on every request and provider call, with four threads recording
+ * into the same meters as request threads do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricsServiceBenchmark {
+
+    private static final String API = "stub";
+
+    private MetricsService metricsService;
+    private RequestTiming timing;
+
+    @Setup
+    public void setUp() {
+        metricsService = new MetricsService(new SimpleMeterRegistry());
+        metricsService.init();
+        metricsService.registerProvider(API);
+
+        timing = RequestTiming.start();
+        final long start = System.nanoTime();
+        timing.record(RequestTiming.Phase.KEY, start);
+        timing.record(RequestTiming.Phase.CACHE, start);
+        timing.record(RequestTiming.Phase.ENCODE, start);
+        timing.finish();
+    }
+
+    @Benchmark
+    public void incrementRequests() {
+        metricsService.incrementRequests(API);
+    }
+
+    @Benchmark
+    public void recordTime() {
+        metricsService.recordTime(API, 42);
+    }
+
+    @Benchmark
+    public void recordRequest() {
+        metricsService.incrementTotalRequests();
+        metricsService.recordRequestTime(timing.getTotal());
+        metricsService.recordPhases(timing);
+    }
+
+}
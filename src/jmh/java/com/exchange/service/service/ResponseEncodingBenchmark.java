@@ -0,0 +1,95 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.ExchangeRateResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encoding and decoding an exchange rate response as JSON and as CBOR, with the mapper
+ * settings the service uses for each. Payload sizes are compared in {@code ResponseCacheTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    private static final String[] CODES = {
+        "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "NZD", "SEK", "NOK", "DKK",
+        "PLN", "CZK", "HUF", "RON", "BGN", "TRY", "ILS", "ZAR", "BRL", "MXN",
+        "CNY", "HKD", "SGD", "KRW", "INR", "IDR", "MYR", "PHP", "THB", "ISK",
+    };
+
+    @Param({"1", "10", "30"})
+    private int symbols;
+
+    private final ObjectMapper json = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory())
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ExchangeRateResponse response;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Map<String, Double> rates = new HashMap<>();
+        for (int i = 0; i < symbols; i++) {
+            rates.put(CODES[i], 0.5 + i * 1.234567);
+        }
+        response = ExchangeRateResponse.builder()
+                .base("USD")
+                .rates(rates)
+                .timestamp(LocalDateTime.of(2024, 1, 2, 16, 0, 1, 123_000_000))
+                .build();
+        jsonBytes = json.writeValueAsBytes(response);
+        cborBytes = cbor.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return json.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodeCbor() throws IOException {
+        return cbor.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public JsonNode decodeJson() throws IOException {
+        return json.readTree(jsonBytes);
+    }
+
+    @Benchmark
+    public JsonNode decodeCbor() throws IOException {
+        return cbor.readTree(cborBytes);
+    }
+
+}
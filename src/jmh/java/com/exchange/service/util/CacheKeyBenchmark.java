@@ -0,0 +1,54 @@
+package com.exchange.service.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures turning request parameters into the canonical {@link RateKey} every request builds.
+ * Symbols are given in mixed case with spaces, as clients send them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private static final String[] CODES = {
+        "eur", "GBP", "jpy", "CHF", "cad", "AUD", "nzd", "SEK", "nok", "DKK",
+        "pln", "CZK", "huf", "RON", "bgn", "TRY", "ils", "ZAR", "brl", "MXN",
+        "cny", "HKD", "sgd", "KRW", "inr", "IDR", "myr", "PHP", "thb", "ISK",
+    };
+
+    @Param({"1", "10", "30"})
+    private int symbols;
+
+    private String query;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < symbols; i++) {
+            text.append(i > 0 ? ", " : "").append(CODES[i]);
+        }
+        query = text.toString();
+    }
+
+    @Benchmark
+    public RateKey rateKey() {
+        return RateKey.of(" usd", query);
+    }
+
+}
@@ -3,9 +3,11 @@ package com.exchange.service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 @SuppressWarnings("HideUtilityClassConstructor")
 public class ServiceApplication {
 
@@ -11,6 +11,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
 
@@ -57,4 +60,17 @@ public class AppConfig {
         return new RestTemplate(requestFactory);
     }
 
+    /**
+     * Creates the asynchronous HTTP client used by the non-blocking provider path.
+     *
+     * @return HttpClient
+     */
+    @Bean
+    public HttpClient asyncHttpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
 }
@@ -1,7 +1,10 @@
 package com.exchange.service.config;
 
+import com.exchange.service.model.RateTable;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
@@ -12,19 +15,39 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class CacheConfig {
 
+    public static final String RATE_TABLES = "rateTables";
+
+    /**
+     * Creates the per-base rate table cache, limited to 200 base currencies.
+     * Freshness is decided by {@code ExchangeRateService} from each table's fetch time against the
+     * soft and hard TTLs; entries are kept until the stale retention (1 day by default) so the last
+     * known rates can still be served while the providers are down.
+     *
+     * @param maxStaleMs time after which an entry is evicted
+     * @return rate table cache keyed by upper-case base currency
+     */
+    @Bean
+    public Cache<String, RateTable> rateTableCache(
+            @Value("${exchange.cache.max-stale-ms:86400000}") final long maxStaleMs) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(maxStaleMs, TimeUnit.MILLISECONDS)
+                .maximumSize(200)
+                .recordStats()
+                .build();
+    }
+
     /**
-     * Configures a Caffeine cache manager for exchange rates.
-     * Cache entries expire after 1 hour and are limited to 100 items.
+     * Configures a Caffeine cache manager exposing the rate table cache,
+     * so it is picked up by the Actuator cache endpoint and cache metrics.
      *
+     * @param rateTableCache the rate table cache
      * @return configured CacheManager instance
      */
     @Bean
-    public CacheManager cacheManager() {
-        final CaffeineCacheManager cacheManager = new CaffeineCacheManager("exchangeRates");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .maximumSize(100)
-                .recordStats());
+    @SuppressWarnings("unchecked")
+    public CacheManager cacheManager(final Cache<String, RateTable> rateTableCache) {
+        final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RATE_TABLES, (Cache<Object, Object>) (Cache<?, ?>) rateTableCache);
         return cacheManager;
     }
 
@@ -0,0 +1,44 @@
+package com.exchange.service.controller;
+
+import com.exchange.service.service.ConversionFormat;
+import com.exchange.service.service.ConversionService;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ConversionController {
+
+    private final ConversionService conversionService;
+
+    /**
+     * Converts a stream of {@code (amount, from, to)} records sent as NDJSON or CSV.
+     * Results are streamed back in the request format while the body is still being read.
+     */
+    @PostMapping(value = "/convert", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ConversionFormat.CSV_VALUE})
+    public ResponseEntity<StreamingResponseBody> convert(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) final String contentType,
+            final InputStream body
+    ) {
+        final ConversionFormat format = ConversionFormat.fromContentType(contentType);
+        log.debug("Conversion request: format={}", format);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(out -> conversionService.convert(body, out, format));
+    }
+
+}
@@ -1,14 +1,36 @@
 package com.exchange.service.controller;
 
-import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.BatchExchangeRateResponse;
+import com.exchange.service.model.EncodedResponse;
+import com.exchange.service.model.ExchangeRateQuery;
+import com.exchange.service.model.HistoricalRatesResponse;
 import com.exchange.service.service.ExchangeRateService;
+import com.exchange.service.service.MetricsService;
+import com.exchange.service.service.ResponseCache;
+import com.exchange.service.util.RequestTiming;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,19 +40,178 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ExchangeRateController {
 
+    private static final String SERVER_TIMING = "Server-Timing";
+
     private final ExchangeRateService exchangeRateService;
+    private final ResponseCache responseCache;
+    private final MetricsService metricsService;
+
+    @Value("${exchange.server-timing.enabled:false}")
+    private boolean serverTiming;
 
     /**
      * Get exchange rates for a base currency against specified symbols.
+     * The future is handed back to Spring MVC, so no request thread waits on the providers.
+     * The body is written from bytes serialized once per rate table: CBOR when the client prefers
+     * {@code application/cbor}, otherwise JSON, gzip-compressed when the client accepts it.
+     * Responses carry an ETag, Last-Modified and a max-age covering the rest of the cached
+     * table's TTL; Spring answers matching conditional requests with 304 without writing a body.
+     * The time of each phase of the request is recorded per phase, and the time until the response
+     * is ready feeds the request latency percentiles. When {@code exchange.server-timing.enabled} is set,
+     * the phases are also returned in a Server-Timing header; those responses are private, so shared
+     * caches never replay one request's timings to other clients.
      */
     @GetMapping("/exchange-rates")
-    public ResponseEntity<ExchangeRateResponse> getExchangeRates(
+    public CompletableFuture<ResponseEntity<byte[]>> getExchangeRates(
             @RequestParam final String base,
-            @RequestParam final String symbols
+            @RequestParam final String symbols,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding
     ) {
         log.debug("Exchange rate request: base={}, symbols={}", base, symbols);
-        final ExchangeRateResponse response = exchangeRateService.getExchangeRates(base, symbols);
-        return ResponseEntity.ok(response);
+        final boolean cbor = prefersCbor(accept);
+        final boolean gzip = !cbor && acceptsGzip(acceptEncoding);
+        final RequestTiming timing = RequestTiming.start();
+        return responseCache.getExchangeRatesAsync(base, symbols, timing)
+                .whenComplete((response, error) -> {
+                    timing.finish();
+                    metricsService.recordRequestTime(timing.getTotal());
+                    metricsService.recordPhases(timing);
+                })
+                .thenApply(response -> cacheable(response, cbor, gzip, serverTiming ? timing : null));
+    }
+
+    /**
+     * Builds the response from the encoded bytes.
+     *
+     * @param timing phases to return in a Server-Timing header, or null to keep the response public
+     */
+    private static ResponseEntity<byte[]> cacheable(final EncodedResponse response, final boolean cbor,
+            final boolean acceptsGzip, final RequestTiming timing) {
+        final Duration maxAge = Duration.between(Instant.now(), response.getExpiresAt());
+        final CacheControl cacheControl = CacheControl.maxAge(maxAge.isNegative() ? Duration.ZERO : maxAge);
+        final boolean gzip = acceptsGzip && response.isGzipSmaller();
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .eTag(response.getEtag() + (cbor ? "-cbor" : gzip ? "-gzip" : ""))
+                .lastModified(response.getFetchedAt())
+                .cacheControl(timing != null ? cacheControl.cachePrivate() : cacheControl.cachePublic())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (timing != null) {
+            builder.header(SERVER_TIMING, timing.toHeader());
+        }
+        if (cbor) {
+            return builder.body(response.getCbor());
+        }
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+        }
+        return builder.body(response.getJson());
+    }
+
+    /**
+     * Checks whether CBOR ranks above JSON in an Accept header. Headers not mentioning CBOR,
+     * the common case, are not parsed.
+     */
+    private static boolean prefersCbor(final String accept) {
+        if (accept == null || !accept.toLowerCase(Locale.ROOT).contains("cbor")) {
+            return false;
+        }
+
+        final List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (final InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(types);
+        for (final MediaType type : types) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return type.getQualityValue() > 0;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header accepts gzip. A {@code gzip} or {@code x-gzip} coding
+     * takes precedence over {@code *}, and a quality of zero refuses the coding.
+     */
+    private static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        double gzip = -1;
+        double any = -1;
+        for (final String coding : acceptEncoding.split(",")) {
+            final int parameters = coding.indexOf(';');
+            final String name = (parameters >= 0 ? coding.substring(0, parameters) : coding)
+                    .trim().toLowerCase(Locale.ROOT);
+            final double quality = parameters >= 0 ? quality(coding.substring(parameters + 1)) : 1;
+            if ("gzip".equals(name) || "x-gzip".equals(name)) {
+                gzip = Math.max(gzip, quality);
+            } else if ("*".equals(name)) {
+                any = quality;
+            }
+        }
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    /**
+     * Reads the {@code q} parameter of a coding, 1 if absent and 0 if malformed.
+     */
+    private static double quality(final String parameters) {
+        for (final String parameter : parameters.split(";")) {
+            final String trimmed = parameter.trim();
+            if (trimmed.length() > 1 && (trimmed.charAt(0) == 'q' || trimmed.charAt(0) == 'Q')
+                    && trimmed.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim());
+                } catch (final NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Get exchange rates for many base/symbols queries in one round trip.
+     * Queries sharing a base are answered from one rate table, fetched at most once.
+     */
+    @PostMapping("/exchange-rates/batch")
+    public CompletableFuture<ResponseEntity<BatchExchangeRateResponse>> getExchangeRatesBatch(
+            @RequestBody final List<ExchangeRateQuery> queries
+    ) {
+        log.debug("Batch exchange rate request: {} queries", queries.size());
+        return exchangeRateService.getExchangeRatesBatchAsync(queries)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Get historical exchange rates for a single date or a date range.
+     * With {@code date}, the rates of that day are returned, or those of the closest earlier day
+     * with published rates; otherwise {@code from} and {@code to} select an inclusive range.
+     * Days are served from the local historical store and fetched upstream only once.
+     */
+    @GetMapping("/exchange-rates/history")
+    public CompletableFuture<ResponseEntity<HistoricalRatesResponse>> getHistoricalRates(
+            @RequestParam final String base,
+            @RequestParam final String symbols,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to
+    ) {
+        log.debug("Historical exchange rate request: base={}, symbols={}, date={}, from={}, to={}",
+                base, symbols, date, from, to);
+        final CompletableFuture<HistoricalRatesResponse> response = date != null
+                ? exchangeRateService.getHistoricalRatesAsync(base, symbols, date)
+                : exchangeRateService.getHistoricalRatesAsync(base, symbols, from, to);
+        return response.thenApply(ResponseEntity::ok);
     }
 
 }
@@ -2,6 +2,8 @@ package com.exchange.service.controller;
 
 import com.exchange.service.model.ApiMetrics;
 import com.exchange.service.model.MetricsResponse;
+import com.exchange.service.provider.ProviderRegistry;
+import com.exchange.service.provider.RateProvider;
 import com.exchange.service.service.MetricsService;
 
 import org.springframework.http.ResponseEntity;
@@ -9,7 +11,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 public class MetricsController {
 
     private final MetricsService metricsService;
+    private final ProviderRegistry providerRegistry;
 
     /**
      * Returns application metrics including API performance.
@@ -31,28 +35,46 @@ public class MetricsController {
 
         final long totalRequests = metricsService.getTotalRequests();
 
-        final ApiMetrics freeExchangeMetrics = buildApiMetrics("free_exchange", "Free currency rates API");
-        final ApiMetrics frankfurterMetrics = buildApiMetrics("frankfurter", "Frankfurter API");
+        final List<ApiMetrics> apiMetrics = providerRegistry.getProviders().stream()
+                .map(this::buildApiMetrics)
+                .collect(Collectors.toList());
 
         final MetricsResponse response = MetricsResponse.builder()
                 .totalRequests(totalRequests)
-                .apiMetrics(Arrays.asList(freeExchangeMetrics, frankfurterMetrics))
+                .coalescedRequests(metricsService.getCoalescedRequests())
+                .staleResponses(metricsService.getStaleServed())
+                .requestTimePercentiles(metricsService.getRequestTimePercentiles())
+                .apiMetrics(apiMetrics)
                 .build();
 
         return ResponseEntity.ok(response);
     }
 
-    private ApiMetrics buildApiMetrics(final String apiKey, final String displayName) {
+    private ApiMetrics buildApiMetrics(final RateProvider provider) {
+        final String apiKey = provider.getName();
         final long requests = metricsService.getRequests(apiKey);
         final long responses = metricsService.getResponses(apiKey);
+        final long notModified = metricsService.getNotModified(apiKey);
 
         return ApiMetrics.builder()
-                .datasource(displayName)
+                .datasource(provider.getDisplayName())
                 .totalRequests(requests)
                 .totalResponses(responses)
                 .totalErrors(metricsService.getErrors(apiKey))
+                .totalRejected(metricsService.getRejected(apiKey))
+                .hedgesSent(metricsService.getHedges(apiKey))
+                .hedgesWon(metricsService.getHedgesWon(apiKey))
+                .notModified(notModified)
+                .notModifiedRate(requests > 0 ? (double) notModified / requests * 100 : 0.0)
+                .shortCircuited(metricsService.getShortCircuited(apiKey))
+                .circuitState(metricsService.getCircuitState(apiKey))
+                .queueDepth(metricsService.getQueueDepth(apiKey))
+                .activeThreads(metricsService.getActiveThreads(apiKey))
                 .averageResponseTime(metricsService.getAvgTime(apiKey))
                 .lastResponseTime(metricsService.getLastTime(apiKey))
+                .responseTimePercentiles(metricsService.getResponseTimePercentiles(apiKey))
+                .averageParseTime(metricsService.getAvgParseTime(apiKey))
+                .averageParseAllocatedBytes(metricsService.getAvgParseAllocated(apiKey))
                 .successRate(requests > 0 ? (double) responses / requests * 100 : 0.0)
                 .build();
     }
@@ -0,0 +1,37 @@
+package com.exchange.service.controller;
+
+import com.exchange.service.service.RateSubscriptionService;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class RateStreamController {
+
+    private final RateSubscriptionService rateSubscriptionService;
+
+    /**
+     * Streams rate updates for a base currency as Server-Sent Events: a {@code snapshot}
+     * event with the requested rates, then a {@code delta} event with the changed rates
+     * each time the base's rate table is refreshed.
+     */
+    @GetMapping(value = "/exchange-rates/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExchangeRates(
+            @RequestParam final String base,
+            @RequestParam final String symbols
+    ) {
+        log.debug("Rate subscription: base={}, symbols={}", base, symbols);
+        return rateSubscriptionService.subscribe(base, symbols);
+    }
+
+}
@@ -2,6 +2,7 @@ package com.exchange.service.error;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -63,6 +64,19 @@ public class GlobalExceptionHandler {
         return buildErrorResponse("Missing required parameter: " + ex.getParameterName(), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles invalid request arguments and unreadable request bodies.
+     *
+     * @param ex The exception
+     * @return Error response with BAD_REQUEST status
+     */
+    @ExceptionHandler({IllegalArgumentException.class, HttpMessageNotReadableException.class})
+    public ResponseEntity<Map<String, Object>> handleBadRequest(final Exception ex) {
+        log.error("Invalid request: {}", ex.getMessage());
+        final String message = ex instanceof IllegalArgumentException ? ex.getMessage() : "Malformed request body";
+        return buildErrorResponse(message, HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Handles HTTP client errors.
      *
@@ -1,5 +1,7 @@
 package com.exchange.service.model;
 
+import java.util.Map;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,8 +13,25 @@ public class ApiMetrics {
     private long totalRequests;
     private long totalResponses;
     private long totalErrors;
+    private long totalRejected;
+    private long hedgesSent;
+    private long hedgesWon;
+    private long notModified;
+    private double notModifiedRate;
+    private long shortCircuited;
+    private String circuitState;
+    private long queueDepth;
+    private long activeThreads;
     private double averageResponseTime;
     private long lastResponseTime;
+
+    /**
+     * Response time percentiles by rolling window: 1m, 5m and 15m.
+     */
+    private Map<String, LatencyPercentiles> responseTimePercentiles;
+
+    private double averageParseTime;
+    private double averageParseAllocatedBytes;
     private double successRate;
 
 }
@@ -0,0 +1,17 @@
+package com.exchange.service.model;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Combined answer to a batch request, with one entry per query in query order.
+ */
+@Data
+@Builder
+public class BatchExchangeRateResponse {
+
+    private List<BatchExchangeRateResult> results;
+
+}
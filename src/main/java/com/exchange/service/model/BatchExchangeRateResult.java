@@ -0,0 +1,19 @@
+package com.exchange.service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Answer to one query of a batch request: either the rates or the reason they could not be served.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchExchangeRateResult {
+
+    private ExchangeRateResponse result;
+    private String error;
+
+}
@@ -0,0 +1,21 @@
+package com.exchange.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One amount to convert from one currency to another.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionRecord {
+
+    private Double amount;
+    private String from;
+    private String to;
+
+}
@@ -0,0 +1,23 @@
+package com.exchange.service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Converted amount of a record, or the reason it could not be converted.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversionResult {
+
+    private Double amount;
+    private String from;
+    private String to;
+    private Double rate;
+    private Double converted;
+    private String error;
+
+}
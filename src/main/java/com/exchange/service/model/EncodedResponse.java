@@ -0,0 +1,45 @@
+package com.exchange.service.model;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * An exchange rate response serialized once and kept with the rate table it was built from.
+ * The encoded bytes are shared by every request served from the entry and must not be modified.
+ */
+@Value
+@Builder
+public class EncodedResponse {
+
+    /**
+     * Rate table the response was built from; the entry is valid while this table is current.
+     */
+    RateTable table;
+
+    boolean stale;
+    byte[] json;
+    byte[] gzip;
+
+    /**
+     * CBOR encoding, with the timestamp as numbers and the rates as binary doubles.
+     */
+    byte[] cbor;
+
+    /**
+     * Strong validator of the JSON representation, derived from its SHA-256 digest.
+     */
+    String etag;
+
+    Instant fetchedAt;
+    Instant expiresAt;
+
+    /**
+     * Whether the gzip encoding is worth sending; small bodies grow when compressed.
+     */
+    public boolean isGzipSmaller() {
+        return gzip.length < json.length;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.exchange.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One base/symbols lookup of a batch request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRateQuery {
+
+    private String base;
+    private String symbols;
+
+}
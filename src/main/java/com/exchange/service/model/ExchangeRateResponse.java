@@ -1,5 +1,9 @@
 package com.exchange.service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -14,4 +18,23 @@ public class ExchangeRateResponse {
     private Map<String, Double> rates;
     private LocalDateTime timestamp;
 
+    /**
+     * Whether the rates are older than the cache TTL, served while they are refreshed
+     * or because the providers are unavailable. Omitted when false.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean stale;
+
+    /**
+     * When the rate table behind the response was fetched; drives the HTTP validators.
+     */
+    @JsonIgnore
+    private Instant fetchedAt;
+
+    /**
+     * When the rate table behind the response leaves the cache; drives Cache-Control.
+     */
+    @JsonIgnore
+    private Instant expiresAt;
+
 }
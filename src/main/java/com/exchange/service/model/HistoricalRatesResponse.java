@@ -0,0 +1,23 @@
+package com.exchange.service.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Daily rates of a base currency over a date range. Days without published rates,
+ * such as weekends and holidays, are absent from the rates.
+ */
+@Data
+@Builder
+public class HistoricalRatesResponse {
+
+    private String base;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private SortedMap<LocalDate, Map<String, Double>> rates;
+
+}
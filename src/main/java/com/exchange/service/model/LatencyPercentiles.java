@@ -0,0 +1,19 @@
+package com.exchange.service.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Latency percentiles over one rolling window, in milliseconds.
+ */
+@Data
+@Builder
+public class LatencyPercentiles {
+
+    private long count;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+
+}
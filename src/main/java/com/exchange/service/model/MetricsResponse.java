@@ -1,6 +1,7 @@
 package com.exchange.service.model;
 
 import java.util.List;
+import java.util.Map;
 
 import lombok.Builder;
 import lombok.Data;
@@ -10,6 +11,14 @@ import lombok.Data;
 public class MetricsResponse {
 
     private long totalRequests;
+    private long coalescedRequests;
+    private long staleResponses;
+
+    /**
+     * End-to-end exchange rate request time percentiles by rolling window: 1m, 5m and 15m.
+     */
+    private Map<String, LatencyPercentiles> requestTimePercentiles;
+
     private List<ApiMetrics> apiMetrics;
 
 }
@@ -0,0 +1,44 @@
+package com.exchange.service.model;
+
+import com.exchange.service.util.Rates;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Complete set of averaged rates for a single base currency.
+ * One table is cached per base and any symbol subset is answered from it.
+ * Rates are held in a primitive array indexed by {@link com.exchange.service.util.CurrencyRegistry}
+ * and only converted to a map when a response is built.
+ */
+@Value
+@Builder
+public class RateTable {
+
+    String base;
+    double[] rates;
+    Instant fetchedAt;
+
+    /**
+     * Gets the rate of a currency.
+     *
+     * @param code currency code
+     * @return the rate, or {@code NaN} if the table has none for the code
+     */
+    public double rate(final String code) {
+        return Rates.get(rates, code);
+    }
+
+    /**
+     * Gets the rate of a currency by registry index.
+     *
+     * @param index currency index
+     * @return the rate, or {@code NaN} if the table has none for the index
+     */
+    public double rate(final int index) {
+        return Rates.get(rates, index);
+    }
+
+}
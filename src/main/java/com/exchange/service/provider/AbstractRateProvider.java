@@ -0,0 +1,77 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.util.Rates;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Base class for providers serving a JSON document per base currency over HTTP.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public abstract class AbstractRateProvider implements RateProvider {
+
+    private final String name;
+    private final String displayName;
+    private final Duration timeout;
+    private final double weight;
+    private final ProviderCapabilities capabilities;
+
+    @Getter(AccessLevel.NONE)
+    private final ProviderClient providerClient;
+
+    @Override
+    public CompletableFuture<double[]> fetchRates(final String base) {
+        final String field = ratesField(base);
+        return providerClient.getJson(name, url(base), hedgeUrl(base),
+                parser -> JsonRates.read(parser, field), Rates.NONE);
+    }
+
+    @Override
+    public CompletableFuture<SortedMap<LocalDate, double[]>> fetchHistory(final String base, final LocalDate from,
+            final LocalDate to) {
+        final String url = historyUrl(base, from, to);
+        if (url == null) {
+            return RateProvider.super.fetchHistory(base, from, to);
+        }
+        final String field = ratesField(base);
+        return providerClient.getJson(name, url, parser -> JsonRates.readSeries(parser, field),
+                Collections.emptySortedMap());
+    }
+
+    /**
+     * Builds the document URL for the base currency.
+     */
+    protected abstract String url(String base);
+
+    /**
+     * Builds the URL of the daily rates between two dates, or null if the provider has no history.
+     * The document holds an object keyed by ISO date under {@link #ratesField(String)}.
+     */
+    protected String historyUrl(final String base, final LocalDate from, final LocalDate to) {
+        return null;
+    }
+
+    /**
+     * Builds the URL used for hedge requests. Defaults to the primary URL, which the
+     * pooled client serves on a different connection.
+     */
+    protected String hedgeUrl(final String base) {
+        return url(base);
+    }
+
+    /**
+     * Gets the top-level field of the provider's JSON document holding the rates object.
+     * The document is streamed and only that object is read.
+     */
+    protected abstract String ratesField(String base);
+
+}
@@ -0,0 +1,192 @@
+package com.exchange.service.provider;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for a single provider.
+ * Opens when the failure rate over the last {@code windowSize} calls reaches the threshold,
+ * rejects calls while open, and then lets a limited number of probes through to test recovery.
+ * Every state change starts a new generation. Permits carry the generation they were granted in
+ * and whether they are probes, so a call that outlives the state it started in is ignored when it
+ * completes instead of being counted as a probe or against the new window.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Permit returned when a call is not allowed.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * Breaker state.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private long generation;
+
+    /**
+     * Creates a closed breaker.
+     *
+     * @param windowSize number of most recent calls evaluated
+     * @param minimumCalls calls required before the failure rate is evaluated
+     * @param failureRateThreshold failure rate between 0 and 1 that opens the breaker
+     * @param openDurationNanos time the breaker stays open before probing
+     * @param halfOpenProbes probes allowed, and successes required, in half-open state
+     * @param nanoClock time source in nanoseconds
+     */
+    public CircuitBreaker(final int windowSize, final int minimumCalls, final double failureRateThreshold,
+            final long openDurationNanos, final int halfOpenProbes, final LongSupplier nanoClock) {
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Checks whether a call may proceed. Every permitted call must be followed by
+     * {@link #onSuccess(long)}, {@link #onFailure(long)} or {@link #release(long)} with the permit.
+     *
+     * @return the permit, or {@link #REJECTED} if the call is not permitted
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                return REJECTED;
+            }
+            transition(State.HALF_OPEN);
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return REJECTED;
+            }
+            probesInFlight++;
+            return generation << 1 | 1;
+        }
+        return generation << 1;
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param permit permit the call was granted
+     */
+    public synchronized void onSuccess(final long permit) {
+        if (!current(permit)) {
+            return;
+        }
+        if (isProbe(permit)) {
+            probesInFlight--;
+            if (++probeSuccesses >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Records a failed or timed out call.
+     *
+     * @param permit permit the call was granted
+     */
+    public synchronized void onFailure(final long permit) {
+        if (!current(permit)) {
+            return;
+        }
+        if (isProbe(permit)) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= minimumCalls && (double) failures / calls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Releases a permitted call that did not reach the provider.
+     *
+     * @param permit permit the call was granted
+     */
+    public synchronized void release(final long permit) {
+        if (current(permit) && isProbe(permit)) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * Gets the current state.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void record(final boolean failure) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    /**
+     * Checks whether a permit was granted in the current generation; permits of an earlier one are stale.
+     */
+    private boolean current(final long permit) {
+        return permit != REJECTED && permit >>> 1 == generation;
+    }
+
+    private static boolean isProbe(final long permit) {
+        return (permit & 1) != 0;
+    }
+
+    private void transition(final State next) {
+        state = next;
+        generation++;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        transition(State.CLOSED);
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.exchange.service.provider;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Frankfurter API, publishing the ECB reference rates. Only ECB currencies are accepted as base.
+ */
+@Order(2)
+@Component
+public class FrankfurterRateProvider extends AbstractRateProvider {
+
+    public static final String NAME = "frankfurter";
+
+    private static final Set<String> ECB_CURRENCIES = Set.of(
+            "AUD", "BGN", "BRL", "CAD", "CHF", "CNY", "CZK", "DKK", "EUR", "GBP", "HKD",
+            "HUF", "IDR", "ILS", "INR", "ISK", "JPY", "KRW", "MXN", "MYR", "NOK", "NZD",
+            "PHP", "PLN", "RON", "SEK", "SGD", "THB", "TRY", "USD", "ZAR");
+
+    /**
+     * Creates the provider.
+     *
+     * @param providerClient client for provider calls
+     * @param timeoutMs time after which the answer is ignored
+     * @param weight relative weight in the average
+     */
+    public FrankfurterRateProvider(final ProviderClient providerClient,
+            @Value("${exchange.providers.frankfurter.timeout-ms:800}") final long timeoutMs,
+            @Value("${exchange.providers.frankfurter.weight:1.0}") final double weight) {
+        super(NAME, "Frankfurter API", Duration.ofMillis(timeoutMs), weight,
+                ProviderCapabilities.builder().fullTable(true).historical(true).baseCurrencies(ECB_CURRENCIES).build(),
+                providerClient);
+    }
+
+    @Override
+    protected String url(final String base) {
+        return String.format(
+                "https://api.frankfurter.dev/v1/latest?base=%s",
+                base
+        );
+    }
+
+    @Override
+    protected String historyUrl(final String base, final LocalDate from, final LocalDate to) {
+        return String.format(
+                "https://api.frankfurter.dev/v1/%s..%s?base=%s",
+                from, to, base
+        );
+    }
+
+    @Override
+    protected String ratesField(final String base) {
+        return "rates";
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.exchange.service.provider;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * fawazahmed0 currency API served by jsDelivr. Returns the full table for any base.
+ * Hedge requests go to the Cloudflare Pages mirror of the same data.
+ */
+@Order(1)
+@Component
+public class FreeExchangeRateProvider extends AbstractRateProvider {
+
+    public static final String NAME = "free_exchange";
+
+    /**
+     * Creates the provider.
+     *
+     * @param providerClient client for provider calls
+     * @param timeoutMs time after which the answer is ignored
+     * @param weight relative weight in the average
+     */
+    public FreeExchangeRateProvider(final ProviderClient providerClient,
+            @Value("${exchange.providers.free_exchange.timeout-ms:800}") final long timeoutMs,
+            @Value("${exchange.providers.free_exchange.weight:1.0}") final double weight) {
+        super(NAME, "Free currency rates API", Duration.ofMillis(timeoutMs), weight,
+                ProviderCapabilities.builder().fullTable(true).build(), providerClient);
+    }
+
+    @Override
+    protected String url(final String base) {
+        return String.format(
+                "https://cdn.jsdelivr.net/npm/@fawazahmed0/currency-api@latest/v1/currencies/%s.json",
+                base.toLowerCase()
+        );
+    }
+
+    @Override
+    protected String hedgeUrl(final String base) {
+        return String.format(
+                "https://latest.currency-api.pages.dev/v1/currencies/%s.json",
+                base.toLowerCase()
+        );
+    }
+
+    @Override
+    protected String ratesField(final String base) {
+        return base.toLowerCase();
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.Rates;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Token-level reader for provider rate documents. Reads the rates object straight into a
+ * rate array indexed by {@link CurrencyRegistry} and skips every other value without materializing it.
+ * Field names are canonicalized by the parser and both cases are registered, so known codes are
+ * resolved without allocating.
+ */
+final class JsonRates {
+
+    private JsonRates() {
+    }
+
+    /**
+     * Reads the rates object stored under a top-level field.
+     *
+     * @param parser parser positioned at the first token of the document
+     * @param field name of the top-level field holding the rates object
+     * @return rates indexed by currency, {@link Rates#NONE} if the field is missing; non-numeric values are skipped
+     * @throws IOException if the document is malformed
+     */
+    static double[] read(final JsonParser parser, final String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return Rates.NONE;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT && field.equals(name)) {
+                return readObject(parser);
+            }
+            parser.skipChildren();
+        }
+        return Rates.NONE;
+    }
+
+    /**
+     * Reads a time series stored under a top-level field: an object keyed by ISO date
+     * whose values are rates objects.
+     *
+     * @param parser parser positioned at the first token of the document
+     * @param field name of the top-level field holding the series
+     * @return rates by day, empty if the field is missing; entries with malformed dates are skipped
+     * @throws IOException if the document is malformed
+     */
+    static SortedMap<LocalDate, double[]> readSeries(final JsonParser parser, final String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return Collections.emptySortedMap();
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT && field.equals(name)) {
+                return readDays(parser);
+            }
+            parser.skipChildren();
+        }
+        return Collections.emptySortedMap();
+    }
+
+    private static SortedMap<LocalDate, double[]> readDays(final JsonParser parser) throws IOException {
+        final SortedMap<LocalDate, double[]> days = new TreeMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final LocalDate day = parseDate(parser.getCurrentName());
+            if (parser.nextToken() != JsonToken.START_OBJECT || day == null) {
+                parser.skipChildren();
+                continue;
+            }
+            days.put(day, readObject(parser));
+        }
+        return days;
+    }
+
+    private static LocalDate parseDate(final String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static double[] readObject(final JsonParser parser) throws IOException {
+        double[] rates = Rates.newArray();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String symbol = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NUMBER_FLOAT && value != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            final int index = CurrencyRegistry.register(symbol);
+            if (index >= 0) {
+                rates = Rates.grow(rates, CurrencyRegistry.size());
+                rates[index] = parser.getDoubleValue();
+            }
+        }
+        return rates;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.exchange.service.provider;
+
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Describes what a {@link RateProvider} can serve.
+ */
+@Value
+@Builder
+public class ProviderCapabilities {
+
+    /**
+     * Whether one call returns every symbol the provider knows for the base.
+     */
+    boolean fullTable;
+
+    /**
+     * Whether the provider serves daily rates for past dates through {@link RateProvider#fetchHistory}.
+     */
+    boolean historical;
+
+    /**
+     * Base currencies the provider accepts, empty if it accepts any.
+     */
+    @Singular
+    Set<String> baseCurrencies;
+
+    /**
+     * Checks whether the provider accepts the base currency.
+     *
+     * @param base upper-case base currency code
+     * @return true if the base is supported
+     */
+    public boolean supportsBase(final String base) {
+        return baseCurrencies.isEmpty() || baseCurrencies.contains(base);
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.service.MetricsService;
+import com.exchange.service.util.ThreadAllocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Fetches JSON documents from rate providers and streams the bodies through a token-level reader.
+ * By default calls go through the pooled {@link RestTemplate} on the provider's bounded
+ * executor. With {@code exchange.client.non-blocking=true} they use the asynchronous JDK
+ * {@link HttpClient}, so no thread is held while waiting on the upstream API.
+ * The ETag and Last-Modified of every document are remembered with the result read from it,
+ * and later fetches are conditional: a 304 answer reuses that result without downloading or parsing.
+ * Reused results are shared between callers and must not be modified.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderClient {
+
+    private static final int MAX_VALIDATED_DOCUMENTS = 1000;
+
+    private final RestTemplate restTemplate;
+    private final HttpClient asyncHttpClient;
+    private final ObjectMapper objectMapper;
+    private final ProviderExecutors providerExecutors;
+    private final ProviderHedger providerHedger;
+    private final MetricsService metricsService;
+    private final Cache<String, Validated> validators = Caffeine.newBuilder()
+            .maximumSize(MAX_VALIDATED_DOCUMENTS)
+            .build();
+
+    @Value("${exchange.client.non-blocking:false}")
+    private boolean nonBlocking;
+
+    @Value("${http.client.socket-timeout:700}")
+    private int socketTimeout;
+
+    /**
+     * Fetches a JSON document from a provider and streams it through the reader, hedging slow
+     * calls with a request to the mirror URL. Parse time and allocation are recorded per provider.
+     *
+     * @param provider provider name, selects the executor in blocking mode
+     * @param url document URL
+     * @param hedgeUrl URL used for the backup request
+     * @param reader reads the document from a parser positioned at its first token
+     * @param empty result for non-2xx responses and empty bodies
+     * @param <T> result type
+     * @return future completed with the reader's result
+     */
+    public <T> CompletableFuture<T> getJson(final String provider, final String url, final String hedgeUrl,
+            final JsonReader<T> reader, final T empty) {
+        return providerHedger.call(provider,
+                () -> fetchJson(provider, url, reader, empty),
+                () -> fetchJson(provider, hedgeUrl, reader, empty));
+    }
+
+    /**
+     * Fetches a JSON document from a provider once, without hedging. Used for documents such as
+     * history ranges whose latency is not comparable to the provider's latest-rate calls, so they
+     * are neither hedged against nor recorded in that latency.
+     *
+     * @param provider provider name, selects the executor in blocking mode
+     * @param url document URL
+     * @param reader reads the document from a parser positioned at its first token
+     * @param empty result for non-2xx responses and empty bodies
+     * @param <T> result type
+     * @return future completed with the reader's result
+     */
+    public <T> CompletableFuture<T> getJson(final String provider, final String url, final JsonReader<T> reader,
+            final T empty) {
+        return fetchJson(provider, url, reader, empty);
+    }
+
+    private <T> CompletableFuture<T> fetchJson(final String provider, final String url, final JsonReader<T> reader,
+            final T empty) {
+        return nonBlocking
+                ? getJsonAsync(provider, url, reader, empty)
+                : getJsonBlocking(provider, url, reader, empty);
+    }
+
+    /**
+     * Streams the response body into the reader on the provider executor, recording how long the
+     * call waited for an executor thread.
+     */
+    private <T> CompletableFuture<T> getJsonBlocking(final String provider, final String url,
+            final JsonReader<T> reader, final T empty) {
+        final long submitted = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            metricsService.recordQueueWait(provider, System.nanoTime() - submitted);
+            final Validated validated = validators.getIfPresent(url);
+            final T result = restTemplate.execute(url, HttpMethod.GET,
+                    request -> {
+                        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                        if (validated != null) {
+                            validated.addTo(request.getHeaders());
+                        }
+                    },
+                    response -> {
+                        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && validated != null) {
+                            return reuse(provider, validated);
+                        }
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            return empty;
+                        }
+                        final T body = read(provider, objectMapper.getFactory().createParser(response.getBody()),
+                                reader, empty);
+                        remember(url, response.getHeaders().getETag(),
+                                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED), body);
+                        return body;
+                    });
+            return result != null ? result : empty;
+        }, providerExecutors.executorFor(provider));
+    }
+
+    private <T> CompletableFuture<T> getJsonAsync(final String provider, final String url,
+            final JsonReader<T> reader, final T empty) {
+        final Validated validated = validators.getIfPresent(url);
+        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(socketTimeout))
+                .header("Accept", "application/json")
+                .GET();
+        if (validated != null) {
+            validated.addTo(request);
+        }
+
+        return asyncHttpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 500) {
+                        throw new HttpServerErrorException(HttpStatus.valueOf(response.statusCode()));
+                    }
+                    if (response.statusCode() == HttpStatus.NOT_MODIFIED.value() && validated != null) {
+                        return reuse(provider, validated);
+                    }
+                    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        return empty;
+                    }
+                    try {
+                        final T body = read(provider, objectMapper.getFactory().createParser(response.body()),
+                                reader, empty);
+                        remember(url, response.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+                                response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null), body);
+                        return body;
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T reuse(final String provider, final Validated validated) {
+        metricsService.incrementNotModified(provider);
+        return (T) validated.body;
+    }
+
+    private void remember(final String url, final String etag, final String lastModified, final Object body) {
+        if (etag != null || lastModified != null) {
+            validators.put(url, new Validated(etag, lastModified, body));
+        } else {
+            validators.invalidate(url);
+        }
+    }
+
+    private <T> T read(final String provider, final JsonParser parser, final JsonReader<T> reader,
+            final T empty) throws IOException {
+        final long allocatedBefore = ThreadAllocation.allocatedBytes();
+        final long start = System.nanoTime();
+        try (JsonParser json = parser) {
+            final T result = json.nextToken() != null ? reader.read(json) : empty;
+            metricsService.recordParse(provider, System.nanoTime() - start,
+                    allocatedBefore >= 0 ? ThreadAllocation.allocatedBytes() - allocatedBefore : -1);
+            return result;
+        }
+    }
+
+    /**
+     * Validators of a provider document and the result read from it, reused on 304.
+     */
+    private static final class Validated {
+
+        private final String etag;
+        private final String lastModified;
+        private final Object body;
+
+        Validated(final String etag, final String lastModified, final Object body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        void addTo(final HttpHeaders headers) {
+            if (etag != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        void addTo(final HttpRequest.Builder request) {
+            if (etag != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                request.header(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+    }
+
+    /**
+     * Reads a result from a JSON document.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface JsonReader<T> {
+
+        /**
+         * Reads the document.
+         *
+         * @param parser parser positioned at the first token of the document
+         * @return the result
+         * @throws IOException if the document is malformed
+         */
+        T read(JsonParser parser) throws IOException;
+
+    }
+
+}
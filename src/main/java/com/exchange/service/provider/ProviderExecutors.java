@@ -0,0 +1,75 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.service.MetricsService;
+
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Holds one bounded executor per provider, so blocking upstream calls are isolated
+ * from each other and from the common ForkJoinPool.
+ * Threads and queue depth are read from {@code exchange.providers.<name>.executor.*},
+ * falling back to {@code exchange.providers.executor.*}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderExecutors {
+
+    private static final int DEFAULT_THREADS = 20;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final Environment environment;
+    private final MetricsService metricsService;
+
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the executor for the provider, creating it on first use.
+     *
+     * @param provider provider name
+     * @return bounded executor for the provider
+     */
+    public ThreadPoolExecutor executorFor(final String provider) {
+        return executors.computeIfAbsent(provider, this::createExecutor);
+    }
+
+    /**
+     * Stops all provider executors.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    private ThreadPoolExecutor createExecutor(final String provider) {
+        final int threads = property(provider, "threads", DEFAULT_THREADS);
+        final int queueCapacity = property(provider, "queue-capacity", DEFAULT_QUEUE_CAPACITY);
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("provider-" + provider + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        metricsService.registerExecutor(provider, executor);
+        return executor;
+    }
+
+    private int property(final String provider, final String name, final int defaultValue) {
+        final Integer fallback = environment.getProperty("exchange.providers.executor." + name, Integer.class);
+        return environment.getProperty("exchange.providers." + provider + ".executor." + name, Integer.class,
+                fallback != null ? fallback : defaultValue);
+    }
+
+}
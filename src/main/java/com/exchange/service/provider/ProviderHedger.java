@@ -0,0 +1,147 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.service.MetricsService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends a backup request when a provider has not answered within its observed tail latency.
+ * The first successful answer wins and the other request is cancelled.
+ * Each call tracks its outstanding attempts in one atomic state that the completion path settles,
+ * so a hedge is only sent, and counted, while the primary attempt is still undecided.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProviderHedger {
+
+    private static final int SETTLED = -1;
+
+    private final MetricsService metricsService;
+    private final ProviderLatencies providerLatencies;
+
+    @Value("${exchange.hedging.enabled:true}")
+    private boolean enabled;
+
+    @Value("${exchange.hedging.quantile:0.95}")
+    private double quantile;
+
+    @Value("${exchange.hedging.min-delay-ms:50}")
+    private long minDelayMs;
+
+    @Value("${exchange.hedging.min-samples:20}")
+    private int minSamples;
+
+    /**
+     * Runs the primary attempt and, if it is still pending after the provider's hedge delay,
+     * a backup attempt.
+     *
+     * @param provider provider name
+     * @param primary starts the primary attempt
+     * @param backup starts the backup attempt
+     * @param <T> result type
+     * @return future completed with the first successful result, or the last failure
+     */
+    public <T> CompletableFuture<T> call(final String provider, final Supplier<CompletableFuture<T>> primary,
+            final Supplier<CompletableFuture<T>> backup) {
+        final CompletableFuture<T> first = timed(provider, primary);
+        if (!enabled || providerLatencies.sampleCount(provider) < minSamples) {
+            return first;
+        }
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+        final AtomicInteger outstanding = new AtomicInteger(1);
+
+        first.whenComplete((value, error) -> settle(result, outstanding, value, error, () -> cancel(hedge.get())));
+
+        final long delay = Math.max(minDelayMs, providerLatencies.percentile(provider, quantile));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!outstanding.compareAndSet(1, 2)) {
+                return;
+            }
+            metricsService.incrementHedges(provider);
+            log.debug("{} has not answered within {} ms, sending hedge request", provider, delay);
+
+            final CompletableFuture<T> second = start(provider, backup);
+            hedge.set(second);
+            if (result.isDone()) {
+                cancel(second);
+            }
+            second.whenComplete((value, error) -> {
+                if (settle(result, outstanding, value, error, () -> cancel(first))) {
+                    metricsService.incrementHedgesWon(provider);
+                }
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * Completes the result with the attempt's value, or fails it once every attempt has failed.
+     * Either way the state is set to {@link #SETTLED}, so no hedge can be claimed afterwards.
+     *
+     * @param outstanding number of attempts still running, or {@link #SETTLED}
+     * @return true if this attempt won
+     */
+    private <T> boolean settle(final CompletableFuture<T> result, final AtomicInteger outstanding,
+            final T value, final Throwable error, final Runnable cancelOther) {
+        if (error == null) {
+            if (outstanding.getAndSet(SETTLED) == SETTLED) {
+                return false;
+            }
+            result.complete(value);
+            cancelOther.run();
+            return true;
+        }
+        while (true) {
+            final int current = outstanding.get();
+            if (current == SETTLED) {
+                return false;
+            }
+            if (outstanding.compareAndSet(current, current == 1 ? SETTLED : current - 1)) {
+                if (current == 1) {
+                    result.completeExceptionally(error);
+                }
+                return false;
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> start(final String provider, final Supplier<CompletableFuture<T>> attempt) {
+        try {
+            return timed(provider, attempt);
+        } catch (final RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> timed(final String provider, final Supplier<CompletableFuture<T>> attempt) {
+        final long start = System.nanoTime();
+        final CompletableFuture<T> future = attempt.get();
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                providerLatencies.record(provider, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+        return future;
+    }
+
+    private void cancel(final CompletableFuture<?> attempt) {
+        if (attempt != null) {
+            attempt.cancel(true);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.util.LatencyTracker;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent latency of successful calls per provider, used for hedge delays and adaptive timeouts.
+ */
+@Component
+public class ProviderLatencies {
+
+    private static final int SAMPLE_SIZE = 256;
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * Records the latency of a successful call.
+     *
+     * @param provider provider name
+     * @param millis latency in ms
+     */
+    public void record(final String provider, final long millis) {
+        trackers.computeIfAbsent(provider, p -> new LatencyTracker(SAMPLE_SIZE)).record(millis);
+    }
+
+    /**
+     * Number of samples held for the provider.
+     */
+    public int sampleCount(final String provider) {
+        final LatencyTracker tracker = trackers.get(provider);
+        return tracker != null ? tracker.sampleCount() : 0;
+    }
+
+    /**
+     * Gets the provider's observed latency at the quantile.
+     *
+     * @param provider provider name
+     * @param quantile quantile between 0 and 1
+     * @return latency in ms, or 0 if no samples were recorded
+     */
+    public long percentile(final String provider, final double quantile) {
+        final LatencyTracker tracker = trackers.get(provider);
+        return tracker != null ? tracker.percentile(quantile) : 0;
+    }
+
+}
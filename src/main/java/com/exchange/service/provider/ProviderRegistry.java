@@ -0,0 +1,48 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.service.MetricsService;
+
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Holds every discovered {@link RateProvider} in {@code @Order} and registers their metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderRegistry {
+
+    @Getter
+    private final List<RateProvider> providers;
+    private final MetricsService metricsService;
+
+    /**
+     * Registers the metrics of every provider.
+     */
+    @PostConstruct
+    public void init() {
+        providers.forEach(provider -> metricsService.registerProvider(provider.getName()));
+    }
+
+    /**
+     * Gets the providers accepting the base currency.
+     *
+     * @param base upper-case base currency code
+     * @param fullTableOnly whether to only include providers returning complete tables
+     * @return matching providers in order
+     */
+    public List<RateProvider> providersFor(final String base, final boolean fullTableOnly) {
+        return providers.stream()
+                .filter(provider -> provider.getCapabilities().supportsBase(base))
+                .filter(provider -> !fullTableOnly || provider.getCapabilities().isFullTable())
+                .collect(Collectors.toList());
+    }
+
+}
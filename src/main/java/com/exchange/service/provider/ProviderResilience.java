@@ -0,0 +1,92 @@
+package com.exchange.service.provider;
+
+import com.exchange.service.service.MetricsService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-provider circuit breakers and timeouts derived from recent latency.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderResilience {
+
+    private final ProviderLatencies providerLatencies;
+    private final MetricsService metricsService;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Value("${exchange.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${exchange.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${exchange.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${exchange.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${exchange.circuit-breaker.half-open-probes:2}")
+    private int halfOpenProbes;
+
+    @Value("${exchange.timeouts.adaptive:true}")
+    private boolean adaptiveTimeouts;
+
+    @Value("${exchange.timeouts.quantile:0.99}")
+    private double timeoutQuantile;
+
+    @Value("${exchange.timeouts.multiplier:2.0}")
+    private double timeoutMultiplier;
+
+    @Value("${exchange.timeouts.min-ms:100}")
+    private long minTimeoutMs;
+
+    @Value("${exchange.timeouts.min-samples:20}")
+    private int minSamples;
+
+    /**
+     * Gets the circuit breaker of the provider, creating it on first use.
+     *
+     * @param provider provider name
+     * @return the provider's circuit breaker
+     */
+    public CircuitBreaker circuitBreaker(final String provider) {
+        return circuitBreakers.computeIfAbsent(provider, this::createCircuitBreaker);
+    }
+
+    /**
+     * Gets the timeout for the next call to the provider: a multiple of its recent tail latency,
+     * bounded by the minimum timeout and the provider's configured timeout.
+     *
+     * @param provider the provider
+     * @return timeout for the call
+     */
+    public Duration timeout(final RateProvider provider) {
+        final Duration configured = provider.getTimeout();
+        if (!adaptiveTimeouts || providerLatencies.sampleCount(provider.getName()) < minSamples) {
+            return configured;
+        }
+
+        final long observed = (long) (providerLatencies.percentile(provider.getName(), timeoutQuantile)
+                * timeoutMultiplier);
+        return Duration.ofMillis(Math.min(configured.toMillis(), Math.max(minTimeoutMs, observed)));
+    }
+
+    private CircuitBreaker createCircuitBreaker(final String provider) {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                TimeUnit.MILLISECONDS.toNanos(openDurationMs), halfOpenProbes, System::nanoTime);
+        metricsService.registerCircuitBreaker(provider, circuitBreaker);
+        return circuitBreaker;
+    }
+
+}
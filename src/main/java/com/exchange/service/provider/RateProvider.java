@@ -0,0 +1,65 @@
+package com.exchange.service.provider;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A source of exchange rates. Every Spring bean implementing this interface takes part
+ * in the fan-out, metrics and averaging of {@link com.exchange.service.service.ExchangeRateService}.
+ */
+public interface RateProvider {
+
+    /**
+     * Unique name, used as the metrics tag and in {@code exchange.providers.<name>.*} properties.
+     */
+    String getName();
+
+    /**
+     * Human-readable name shown on the metrics endpoint.
+     */
+    String getDisplayName();
+
+    /**
+     * Time after which the provider's answer is ignored.
+     */
+    Duration getTimeout();
+
+    /**
+     * Relative weight of the provider's rates in the average.
+     */
+    double getWeight();
+
+    /**
+     * What the provider can serve.
+     */
+    ProviderCapabilities getCapabilities();
+
+    /**
+     * Fetches the rates the provider has for the base currency, indexed by
+     * {@link com.exchange.service.util.CurrencyRegistry} with {@code NaN} for missing symbols.
+     * An array without any rate means the provider had no data.
+     *
+     * @param base upper-case base currency code
+     * @return future completed with the rates
+     */
+    CompletableFuture<double[]> fetchRates(String base);
+
+    /**
+     * Fetches the daily rates the provider has for the base currency between two dates,
+     * indexed like {@link #fetchRates(String)}. Days without published rates are absent.
+     * Only called on providers whose capabilities report historical data.
+     *
+     * @param base upper-case base currency code
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return future completed with the rates by day
+     */
+    default CompletableFuture<SortedMap<LocalDate, double[]>> fetchHistory(final String base, final LocalDate from,
+            final LocalDate to) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException(getName() + " does not serve historical rates"));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.exchange.service.service;
+
+import org.springframework.http.MediaType;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Record formats accepted and produced by the conversion endpoint.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ConversionFormat {
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON),
+
+    /**
+     * Comma-separated {@code amount,from,to} lines with an optional header.
+     */
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    /**
+     * Gets the format of a request content type.
+     *
+     * @param contentType request content type
+     * @return CSV for {@code text/csv}, NDJSON otherwise
+     */
+    public static ConversionFormat fromContentType(final String contentType) {
+        return contentType != null && CSV.mediaType.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? CSV
+                : NDJSON;
+    }
+
+}
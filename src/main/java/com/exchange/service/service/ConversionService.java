@@ -0,0 +1,225 @@
+package com.exchange.service.service;
+
+import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.ConversionRecord;
+import com.exchange.service.model.ConversionResult;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.CacheKeyUtil;
+import com.exchange.service.util.CurrencyRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts streams of amount records line by line. Each input line is converted and written
+ * before the next one is read, so memory stays constant whatever the size of the input.
+ * Rate tables are resolved once per distinct source currency and kept for the rest of the stream,
+ * up to {@code exchange.conversion.max-rate-tables}; only registered currency codes are resolved.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversionService {
+
+    private static final int FLUSH_EVERY = 1000;
+    private static final String CSV_HEADER = "amount,from,to,rate,converted,error";
+
+    private final ExchangeRateService exchangeRateService;
+    private final MetricsService metricsService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${exchange.conversion.max-rate-tables:200}")
+    private int maxRateTables;
+
+    /**
+     * Converts every record of the input and writes one result per record to the output,
+     * in the same format and order. Records that cannot be converted yield a result with an error.
+     *
+     * @param in input records
+     * @param out output results
+     * @param format format of both input and output
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convert(final InputStream in, final OutputStream out, final ConversionFormat format)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        final RateSnapshot snapshot = new RateSnapshot();
+        final ObjectReader recordReader = objectMapper.readerFor(ConversionRecord.class);
+        final ObjectWriter resultWriter = objectMapper.writerFor(ConversionResult.class);
+
+        if (format == ConversionFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long records = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || format == ConversionFormat.CSV && records == 0 && isCsvHeader(line)) {
+                continue;
+            }
+
+            if (format == ConversionFormat.CSV) {
+                writeCsv(writer, snapshot.convert(readCsv(line)));
+            } else {
+                writer.write(resultWriter.writeValueAsString(snapshot.convert(readJson(recordReader, line))));
+            }
+            writer.write('\n');
+
+            if (++records % FLUSH_EVERY == 0) {
+                writer.flush();
+                metricsService.incrementConversions(FLUSH_EVERY);
+            }
+        }
+        writer.flush();
+        metricsService.incrementConversions(records % FLUSH_EVERY);
+        log.debug("Converted {} {} records using {} rate tables", records, format, snapshot.size());
+    }
+
+    private static ConversionRecord readJson(final ObjectReader recordReader, final String line) {
+        try {
+            return recordReader.readValue(line);
+        } catch (final JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCsvHeader(final String line) {
+        return line.trim().toLowerCase().startsWith("amount");
+    }
+
+    private static ConversionRecord readCsv(final String line) {
+        final String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            return null;
+        }
+
+        try {
+            return new ConversionRecord(Double.valueOf(fields[0].trim()), fields[1], fields[2]);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void writeCsv(final Writer writer, final ConversionResult result) throws IOException {
+        writer.write(csv(result.getAmount()));
+        writer.write(',');
+        writer.write(csv(result.getFrom()));
+        writer.write(',');
+        writer.write(csv(result.getTo()));
+        writer.write(',');
+        writer.write(csv(result.getRate()));
+        writer.write(',');
+        writer.write(csv(result.getConverted()));
+        writer.write(',');
+        writer.write(csv(result.getError()));
+    }
+
+    private static String csv(final Object value) {
+        if (value == null) {
+            return "";
+        }
+        final String text = value instanceof Double ? plain((Double) value) : value.toString();
+        return text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                ? '"' + text.replace("\"", "\"\"") + '"'
+                : text;
+    }
+
+    /**
+     * Formats a number in plain decimal notation, never in scientific notation.
+     */
+    private static String plain(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        final String text = BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        return text.indexOf('.') >= 0 ? text : text + ".0";
+    }
+
+    /**
+     * Rate tables used by one conversion stream, keyed by source currency.
+     * A currency whose table could not be fetched is remembered as well, so the providers
+     * are called at most once per distinct source currency while it stays in the snapshot.
+     * The least recently used currency is dropped once the snapshot holds {@code maxRateTables}.
+     */
+    private final class RateSnapshot {
+
+        private final Map<String, Optional<RateTable>> tables = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Optional<RateTable>> eldest) {
+                return size() > maxRateTables;
+            }
+        };
+
+        ConversionResult convert(final ConversionRecord record) {
+            if (record == null) {
+                return ConversionResult.builder().error("Malformed record").build();
+            }
+
+            final ConversionResult.ConversionResultBuilder result = ConversionResult.builder()
+                    .amount(record.getAmount())
+                    .from(record.getFrom())
+                    .to(record.getTo());
+            if (record.getAmount() == null || record.getFrom() == null || record.getTo() == null) {
+                return result.error("Record needs amount, from and to").build();
+            }
+
+            final String from = CacheKeyUtil.generateKey(record.getFrom());
+            final String to = CacheKeyUtil.generateKey(record.getTo());
+            if (CurrencyRegistry.indexOf(from) < 0 || CurrencyRegistry.indexOf(to) < 0) {
+                final String unknown = CurrencyRegistry.indexOf(from) < 0 ? from : to;
+                return result.from(from).to(to).error("Unknown currency " + unknown).build();
+            }
+            final Optional<RateTable> table = tables.computeIfAbsent(from, this::resolve);
+            if (table.isEmpty()) {
+                return result.from(from).to(to).error("No exchange rates available for " + from).build();
+            }
+
+            final double rate = exchangeRateService.rate(table.get(), from, to);
+            if (Double.isNaN(rate)) {
+                return result.from(from).to(to).error("No exchange rate from " + from + " to " + to).build();
+            }
+            return result.from(from).to(to).rate(rate).converted(record.getAmount() * rate).build();
+        }
+
+        int size() {
+            return tables.size();
+        }
+
+        private Optional<RateTable> resolve(final String base) {
+            try {
+                return Optional.of(exchangeRateService.resolveRateTable(base));
+            } catch (final ExchangeRateException e) {
+                log.warn("No rates for {} during conversion: {}", base, e.getMessage());
+                return Optional.empty();
+            } catch (final RuntimeException e) {
+                log.error("Failed to resolve rates for {} during conversion", base, e);
+                return Optional.empty();
+            }
+        }
+
+    }
+
+}
@@ -1,25 +1,46 @@
 package com.exchange.service.service;
 
 import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.BatchExchangeRateResponse;
+import com.exchange.service.model.BatchExchangeRateResult;
+import com.exchange.service.model.ExchangeRateQuery;
 import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.HistoricalRatesResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.provider.CircuitBreaker;
+import com.exchange.service.provider.ProviderRegistry;
+import com.exchange.service.provider.ProviderResilience;
+import com.exchange.service.provider.RateProvider;
+import com.exchange.service.util.CacheKeyUtil;
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.Rates;
+import com.exchange.service.util.RequestTiming;
+import com.exchange.service.util.SingleFlight;
+import com.github.benmanes.caffeine.cache.Cache;
 
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.SortedMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
-import java.util.function.Supplier;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
@@ -30,151 +51,708 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ExchangeRateService {
 
-    private static final int API_TIMEOUT_MS = 800;
-    private final RestTemplate restTemplate;
+    private static final String PIVOT_CURRENCY = "EUR";
+    private static final int HISTORY_LOOKBACK_DAYS = 7;
+    private final ProviderRegistry providerRegistry;
+    private final ProviderResilience providerResilience;
     private final MetricsService metricsService;
+    private final Cache<String, RateTable> rateTableCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HistoricalRateStore historicalRateStore;
+    private final SingleFlight<String, RateTable> fetches =
+            new SingleFlight<>(callers -> metricsService.recordFetchCallers(callers));
+    private final SingleFlight<String, Boolean> historyFetches = new SingleFlight<>(callers -> { });
+
+    @Value("${exchange.triangulation.enabled:false}")
+    private boolean triangulationEnabled;
+
+    @Value("${exchange.cache.ttl-ms:3600000}")
+    private long cacheTtlMs;
+
+    @Value("${exchange.cache.hard-ttl-ms:7200000}")
+    private long hardTtlMs;
+
+    @Value("${exchange.batch.max-queries:100}")
+    private int maxBatchQueries;
+
+    @Value("${exchange.history.max-days:3660}")
+    private int maxHistoryDays;
+
+    @Value("${exchange.history.chunk-days:90}")
+    private int historyChunkDays;
+
+    @Value("${exchange.history.timeout-ms:10000}")
+    private long historyTimeoutMs;
 
     /**
-     * Gets exchange rates by averaging results from freeExchange and Frankfurter APIs.
-     * Results are cached by base currency and target symbols.
+     * Gets exchange rates by averaging results from all rate providers.
+     * Blocks until the rates are available, see {@link #getExchangeRatesAsync(String, String)}.
      *
      * @param base Base currency code
      * @param symbols Comma-separated target currencies
      * @return Exchange rates response with averaged values
-     * @throws ExchangeRateException if both APIs fail or service is unavailable
+     * @throws ExchangeRateException if all providers fail or service is unavailable
      */
-    @Cacheable(value = "exchangeRates",
-            key = "T(com.exchange.service.util.CacheKeyUtil).generateKey(#base, #symbols)")
     public ExchangeRateResponse getExchangeRates(final String base, final String symbols) {
-        metricsService.incrementTotalRequests();
-        log.debug("Cache miss for base={}, symbols={}", base, symbols);
+        return await(getExchangeRatesAsync(base, symbols));
+    }
 
-        final CompletableFuture<Map<String, Double>> freeExchangeFuture = executeApiCall(
-                () -> fetchRates(base, symbols, "free_exchange", this::fetchFreeExchangeRates)
-        );
+    /**
+     * Gets exchange rates by averaging results from all rate providers.
+     * The full rate table is cached per base currency, so any symbol subset for a cached
+     * base is answered without calling the providers and the returned future is already complete.
+     * Tables past the TTL are still answered from the cache, flagged as stale, while they are
+     * refreshed, or while the providers are failing.
+     * In triangulation mode only the EUR pivot table is fetched and every other base is
+     * answered with cross rates computed from it.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @return future completed with the exchange rates response, or with
+     *         {@link ExchangeRateException} if all providers fail
+     */
+    public CompletableFuture<ExchangeRateResponse> getExchangeRatesAsync(final String base, final String symbols) {
+        return getExchangeRatesAsync(RateKey.of(base, symbols));
+    }
 
-        final CompletableFuture<Map<String, Double>> frankfurterFuture = executeApiCall(
-                () -> fetchRates(base, symbols, "frankfurter", this::fetchFrankfurterRates)
-        );
+    /**
+     * Gets exchange rates for a parsed query, see {@link #getExchangeRatesAsync(String, String)}.
+     *
+     * @param key canonical base and symbols
+     * @return future completed with the exchange rates response
+     */
+    public CompletableFuture<ExchangeRateResponse> getExchangeRatesAsync(final RateKey key) {
+        return getRateTableAsync(key)
+                .thenApply(table -> buildResponse(table, key));
+    }
 
-        try {
-            CompletableFuture.allOf(freeExchangeFuture, frankfurterFuture).join();
+    /**
+     * Gets the rate table answering a query, with the same caching, staleness and fallback rules
+     * as {@link #getExchangeRatesAsync(String, String)}. Use {@link #buildResponse(RateTable, RateKey)}
+     * to turn it into a response.
+     *
+     * @param key canonical base and symbols
+     * @return future completed with the rate table, the pivot table in triangulation mode
+     */
+    public CompletableFuture<RateTable> getRateTableAsync(final RateKey key) {
+        return getRateTableAsync(key, RequestTiming.NONE);
+    }
 
-            final Map<String, Double> freeExchangeRates = freeExchangeFuture.get();
-            final Map<String, Double> frankfurterRates = frankfurterFuture.get();
+    /**
+     * Gets the rate table answering a query, recording the cache lookup and, when the caller waits for
+     * the providers, the fetch phases of the request. Upstream and averaging times are recorded only for
+     * the caller whose request started the fetch; callers coalesced into it record their wait.
+     *
+     * @param key canonical base and symbols
+     * @param timing phase timing of the request
+     * @return future completed with the rate table, the pivot table in triangulation mode
+     */
+    public CompletableFuture<RateTable> getRateTableAsync(final RateKey key, final RequestTiming timing) {
+        return getRateTable(tableKey(key.getBase()), timing);
+    }
 
-            if (freeExchangeRates.isEmpty() && frankfurterRates.isEmpty()) {
-                log.error("Both exchange rate providers failed to return data");
-                throw new ExchangeRateException("Unable to fetch exchange rates from any provider");
+    /**
+     * Answers many base/symbols queries in one call. Each distinct rate table is resolved once,
+     * from the cache or with a single upstream fetch shared by every query that needs it,
+     * and all tables are resolved concurrently.
+     *
+     * @param queries base/symbols queries
+     * @return future completed with one result per query, in query order, each holding either the
+     *         rates or the reason the query failed
+     * @throws IllegalArgumentException if there are no queries, too many queries, or a query is
+     *         missing or has no base or symbols
+     */
+    public CompletableFuture<BatchExchangeRateResponse> getExchangeRatesBatchAsync(
+            final List<ExchangeRateQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("Queries cannot be empty");
+        }
+        if (queries.size() > maxBatchQueries) {
+            throw new IllegalArgumentException("At most " + maxBatchQueries + " queries are allowed per batch");
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            final ExchangeRateQuery query = queries.get(i);
+            if (query == null || query.getBase() == null || query.getSymbols() == null) {
+                throw new IllegalArgumentException("Query " + i + " must have a base and symbols");
             }
+        }
 
-            return ExchangeRateResponse.builder()
-                    .base(base)
-                    .rates(calculateAverageRates(freeExchangeRates, frankfurterRates))
-                    .timestamp(LocalDateTime.now())
+        final Map<String, CompletableFuture<RateTable>> tables = new LinkedHashMap<>();
+        for (final ExchangeRateQuery query : queries) {
+            tables.computeIfAbsent(tableKey(CacheKeyUtil.generateKey(query.getBase())), this::getRateTable);
+        }
+
+        final CompletableFuture<?>[] settled = tables.values().stream()
+                .map(table -> table.handle((result, error) -> null))
+                .toArray(CompletableFuture<?>[]::new);
+
+        return CompletableFuture.allOf(settled).thenApply(ignored -> {
+            final List<BatchExchangeRateResult> results = new ArrayList<>(queries.size());
+            for (final ExchangeRateQuery query : queries) {
+                final String base = CacheKeyUtil.generateKey(query.getBase());
+                try {
+                    final RateKey key = RateKey.of(base, query.getSymbols());
+                    results.add(BatchExchangeRateResult.builder()
+                            .result(buildResponse(tables.get(tableKey(base)).join(), key))
+                            .build());
+                } catch (final CompletionException | ExchangeRateException | IllegalArgumentException e) {
+                    results.add(BatchExchangeRateResult.builder()
+                            .error(errorMessage(unwrap(e)))
+                            .build());
+                }
+            }
+            return BatchExchangeRateResponse.builder()
+                    .results(results)
                     .build();
-        } catch (final Exception e) {
-            log.error("Failed to fetch rates: {}", e.getMessage());
-            throw e instanceof ExchangeRateException
-                    ? (ExchangeRateException) e
-                    : new ExchangeRateException("Exchange rate service unavailable", e);
+        });
+    }
+
+    /**
+     * Gets the daily rates of a base currency between two dates, inclusive. Rates are served from
+     * the {@link HistoricalRateStore}; days it does not hold yet are fetched once from the historical
+     * providers and appended to it, so later queries over them make no upstream call.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @param from First day
+     * @param to Last day, not after today
+     * @return future completed with the rates of every day with published rates, or with
+     *         {@link ExchangeRateException} if missing days cannot be fetched
+     * @throws IllegalArgumentException if the range is invalid or too long
+     */
+    public CompletableFuture<HistoricalRatesResponse> getHistoricalRatesAsync(final String base, final String symbols,
+            final LocalDate from, final LocalDate to) {
+        final String key = CacheKeyUtil.generateKey(base);
+        final List<String> codes = parseSymbols(symbols);
+        checkHistoryRange(from, to);
+
+        return loadHistory(from, to).thenApply(ignored -> HistoricalRatesResponse.builder()
+                .base(key)
+                .startDate(from)
+                .endDate(to)
+                .rates(readHistory(key, codes, from, to))
+                .build());
+    }
+
+    /**
+     * Gets the rates of a base currency on a date. When no rates were published that day,
+     * the rates of the closest earlier day are returned under that day's date.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @param date Day, not after today
+     * @return future completed with the rates of a single day
+     * @throws IllegalArgumentException if the date is invalid
+     */
+    public CompletableFuture<HistoricalRatesResponse> getHistoricalRatesAsync(final String base, final String symbols,
+            final LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
         }
+        final LocalDate earliest = date.minusDays(HISTORY_LOOKBACK_DAYS);
+        final LocalDate from = earliest.isBefore(HistoricalRateStore.FIRST_DAY)
+                ? HistoricalRateStore.FIRST_DAY
+                : earliest;
+
+        return getHistoricalRatesAsync(base, symbols, from, date).thenApply(response -> {
+            if (response.getRates().isEmpty()) {
+                throw new ExchangeRateException("No exchange rates available for " + date);
+            }
+            final LocalDate day = response.getRates().lastKey();
+            response.setStartDate(day);
+            response.setEndDate(day);
+            response.setRates(response.getRates().tailMap(day));
+            return response;
+        });
     }
 
-    private CompletableFuture<Map<String, Double>> executeApiCall(final Supplier<Map<String, Double>> apiCall) {
-        return CompletableFuture
-                .supplyAsync(apiCall)
-                .completeOnTimeout(Collections.emptyMap(), API_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    /**
+     * Gets the rate table answering a base currency, blocking until it is available.
+     * In triangulation mode this is the EUR pivot table. Use {@link #rate(RateTable, String, String)}
+     * to read base/symbol rates from it.
+     *
+     * @param base Base currency code
+     * @return the rate table
+     * @throws ExchangeRateException if all providers fail
+     */
+    public RateTable resolveRateTable(final String base) {
+        return await(getRateTable(tableKey(CacheKeyUtil.generateKey(base))));
     }
 
-    private Map<String, Double> fetchRates(final String base, final String symbols, final String apiName,
-            final BiFunction<String, String, Map<String, Double>> fetcher) {
-        final long start = System.currentTimeMillis();
-        metricsService.incrementRequests(apiName);
+    /**
+     * Reads a base/symbol rate from a table returned by {@link #resolveRateTable(String)}.
+     *
+     * @param table rate table answering the base
+     * @param base upper-case base currency code
+     * @param symbol upper-case target currency code
+     * @return the rate, or {@code NaN} if there is none
+     */
+    public double rate(final RateTable table, final String base, final String symbol) {
+        if (symbol.equals(base)) {
+            return 1.0;
+        }
+        if (!triangulationEnabled) {
+            return table.rate(symbol);
+        }
+
+        final double baseRate = pivotRate(table, base);
+        return baseRate != 0 ? pivotRate(table, symbol) / baseRate : Double.NaN;
+    }
+
+    /**
+     * Checks whether a rate table answers a base currency, directly or as the triangulation pivot.
+     *
+     * @param table rate table
+     * @param base upper-case base currency code
+     * @return true if rates for the base are read from the table
+     */
+    public boolean answers(final RateTable table, final String base) {
+        return table.getBase().equals(tableKey(base));
+    }
 
+    /**
+     * Reloads the rate table for a base currency from the providers and replaces
+     * the cached entry. The current entry keeps being served until the reload completes.
+     *
+     * @param base Base currency code
+     * @throws ExchangeRateException if all providers fail
+     */
+    public void refreshRateTable(final String base) {
+        final String key = CacheKeyUtil.generateKey(base);
+        await(fetches.executeAsync(key, () -> fetchAndCache(key, RequestTiming.NONE)));
+    }
+
+    private void checkHistoryRange(final LocalDate from, final LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Dates cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        if (from.isBefore(HistoricalRateStore.FIRST_DAY)) {
+            throw new IllegalArgumentException("No historical rates before " + HistoricalRateStore.FIRST_DAY);
+        }
+        if (to.isAfter(today())) {
+            throw new IllegalArgumentException("Dates cannot be in the future");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxHistoryDays) {
+            throw new IllegalArgumentException("At most " + maxHistoryDays + " days are allowed per query");
+        }
+    }
+
+    private SortedMap<LocalDate, Map<String, Double>> readHistory(final String base, final List<String> symbols,
+            final LocalDate from, final LocalDate to) {
+        if (!historicalRateStore.knows(base)) {
+            throw new ExchangeRateException("No historical rates available for base " + base);
+        }
+        return historicalRateStore.read(from, to, base, symbols);
+    }
+
+    /**
+     * Fetches the span between the first and last missing day of the range, in chunks fetched
+     * concurrently. Concurrent queries missing the same span share one fetch.
+     */
+    private CompletableFuture<Boolean> loadHistory(final LocalDate from, final LocalDate to) {
+        final LocalDate first = historicalRateStore.firstMissing(from, to);
+        if (first == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        final LocalDate last = historicalRateStore.lastMissing(first, to);
+
+        return historyFetches.executeAsync(first + ".." + last, () -> {
+            final List<CompletableFuture<?>> chunks = new ArrayList<>();
+            for (LocalDate start = first; !start.isAfter(last); start = start.plusDays(historyChunkDays)) {
+                final LocalDate chunkFrom = start;
+                final LocalDate chunkEnd = start.plusDays(historyChunkDays - 1L);
+                final LocalDate chunkTo = chunkEnd.isAfter(last) ? last : chunkEnd;
+                chunks.add(fetchHistory(chunkFrom, chunkTo).thenAccept(rates -> {
+                    if (rates.isEmpty()) {
+                        historicalRateStore.recordChecked(chunkFrom, chunkTo);
+                    } else {
+                        historicalRateStore.append(chunkFrom, chunkTo, rates, today());
+                    }
+                }));
+            }
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> true);
+        });
+    }
+
+    /**
+     * Fetches EUR rates for a range from the first historical provider that answers, skipping
+     * providers whose circuit is open. An empty answer is returned as is but never stored, since
+     * it cannot be told apart from a rejected call; its days are only skipped until they are due
+     * for a recheck.
+     */
+    private CompletableFuture<SortedMap<LocalDate, double[]>> fetchHistory(final LocalDate from, final LocalDate to) {
+        final List<RateProvider> providers = providerRegistry.getProviders().stream()
+                .filter(provider -> provider.getCapabilities().isHistorical())
+                .filter(provider -> provider.getCapabilities().supportsBase(HistoricalRateStore.PIVOT))
+                .collect(Collectors.toList());
+        return fetchHistory(providers, 0, from, to);
+    }
+
+    private CompletableFuture<SortedMap<LocalDate, double[]>> fetchHistory(final List<RateProvider> providers,
+            final int index, final LocalDate from, final LocalDate to) {
+        if (index >= providers.size()) {
+            return CompletableFuture.failedFuture(
+                    new ExchangeRateException("Unable to fetch historical rates from any provider"));
+        }
+
+        final RateProvider provider = providers.get(index);
+        final CircuitBreaker circuitBreaker = providerResilience.circuitBreaker(provider.getName());
+        final long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            metricsService.incrementShortCircuited(provider.getName());
+            log.debug("{} circuit is open, skipping history call", provider.getName());
+            return fetchHistory(providers, index + 1, from, to);
+        }
+
+        CompletableFuture<SortedMap<LocalDate, double[]>> response;
         try {
-            final Map<String, Double> rates = fetcher.apply(base, symbols);
-            if (!rates.isEmpty()) {
-                metricsService.incrementResponses(apiName);
+            response = provider.fetchHistory(HistoricalRateStore.PIVOT, from, to);
+        } catch (final RejectedExecutionException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response
+                .orTimeout(historyTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((rates, error) -> {
+                    if (error == null) {
+                        circuitBreaker.onSuccess(permit);
+                        return CompletableFuture.completedFuture(rates);
+                    }
+                    final Throwable cause = unwrap(error);
+                    if (cause instanceof RejectedExecutionException) {
+                        circuitBreaker.release(permit);
+                    } else {
+                        circuitBreaker.onFailure(permit);
+                    }
+                    log.warn("{} history failure for {}..{}: {}", provider.getName(), from, to, cause.getMessage());
+                    return fetchHistory(providers, index + 1, from, to);
+                })
+                .thenCompose(rates -> rates);
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private static List<String> parseSymbols(final String symbols) {
+        if (symbols == null) {
+            throw new IllegalArgumentException("Symbols cannot be null");
+        }
+
+        final List<String> codes = new ArrayList<>();
+        for (final String symbol : symbols.split(",")) {
+            final String code = symbol.trim().toUpperCase();
+            if (!code.isEmpty() && !codes.contains(code)) {
+                codes.add(code);
             }
-            return rates;
-        } catch (final Exception e) {
-            metricsService.incrementErrors(apiName);
-            log.warn("{} API failure: {}", apiName, e.getMessage());
-            return Collections.emptyMap();
-        } finally {
-            metricsService.recordTime(apiName, System.currentTimeMillis() - start);
         }
+        return codes;
+    }
+
+    /**
+     * Gets the cached table answering a base: the base itself, or the pivot in triangulation mode.
+     */
+    private String tableKey(final String base) {
+        return triangulationEnabled ? PIVOT_CURRENCY : base;
+    }
+
+    /**
+     * Builds the response to a query from the table returned by {@link #getRateTableAsync(RateKey)}.
+     * Symbols registered while the table was fetched are resolved first.
+     *
+     * @param table rate table answering the query's base
+     * @param key canonical base and symbols
+     * @return the response, flagged stale if the table is older than the TTL
+     */
+    public ExchangeRateResponse buildResponse(final RateTable table, final RateKey key) {
+        final RateKey resolved = key.resolve();
+        final Map<String, Double> rates = triangulationEnabled
+                ? selectCrossRates(table, resolved)
+                : selectRates(table, resolved);
+
+        return ExchangeRateResponse.builder()
+                .base(key.getBase())
+                .rates(rates)
+                .timestamp(LocalDateTime.ofInstant(table.getFetchedAt(), ZoneId.systemDefault()))
+                .stale(isStale(table))
+                .fetchedAt(table.getFetchedAt())
+                .expiresAt(table.getFetchedAt().plusMillis(cacheTtlMs))
+                .build();
     }
 
-    private Map<String, Double> fetchFreeExchangeRates(final String base, final String symbols) {
-        final String url = String.format(
-                "https://cdn.jsdelivr.net/npm/@fawazahmed0/currency-api@latest/v1/currencies/%s.json",
-                base.toLowerCase()
-        );
+    /**
+     * Tables younger than the TTL are returned as is. Between the TTL and the hard TTL the stale
+     * table is returned immediately and refreshed in the background. Past the hard TTL callers wait
+     * for the providers, and get the last known table if they all fail.
+     */
+    private CompletableFuture<RateTable> getRateTable(final String base) {
+        return getRateTable(base, RequestTiming.NONE);
+    }
 
-        final ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url, HttpMethod.GET, null,
-                new ParameterizedTypeReference<>() {
+    private CompletableFuture<RateTable> getRateTable(final String base, final RequestTiming timing) {
+        final long lookup = System.nanoTime();
+        final RateTable cached = rateTableCache.getIfPresent(base);
+        timing.record(RequestTiming.Phase.CACHE, lookup);
+        if (cached == null) {
+            return awaitFetch(loadRateTable(base, timing), timing);
+        }
+
+        final long age = age(cached);
+        if (age < cacheTtlMs) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (age < hardTtlMs) {
+            loadRateTable(base, RequestTiming.NONE).whenComplete((table, error) -> {
+                if (error != null) {
+                    log.warn("Background revalidation failed for base={}: {}", base, unwrap(error).getMessage());
                 }
-        );
+            });
+            metricsService.incrementStaleServed();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return awaitFetch(loadRateTable(base, timing), timing).handle((table, error) -> {
+            if (error == null) {
+                return table;
+            }
+            log.warn("Serving rates for base={} fetched at {}: {}", base, cached.getFetchedAt(),
+                    unwrap(error).getMessage());
+            metricsService.incrementStaleServed();
+            return cached;
+        });
+    }
+
+    private static CompletableFuture<RateTable> awaitFetch(final CompletableFuture<RateTable> fetch,
+            final RequestTiming timing) {
+        if (timing == RequestTiming.NONE) {
+            return fetch;
+        }
+        final long start = System.nanoTime();
+        return fetch.whenComplete((table, error) -> timing.record(RequestTiming.Phase.FETCH, start));
+    }
+
+    /**
+     * Concurrent loads for the same base are coalesced into one upstream fetch.
+     * The loader re-checks the cache so a caller arriving just after a fetch completed
+     * does not start another one.
+     */
+    private CompletableFuture<RateTable> loadRateTable(final String base, final RequestTiming timing) {
+        return fetches.executeAsync(base, () -> {
+            final RateTable current = rateTableCache.getIfPresent(base);
+            return current != null && age(current) < cacheTtlMs
+                    ? CompletableFuture.completedFuture(current)
+                    : fetchAndCache(base, timing);
+        });
+    }
+
+    /**
+     * Checks whether a table is older than the TTL.
+     *
+     * @param table rate table
+     * @return true if responses built from the table are stale
+     */
+    public boolean isStale(final RateTable table) {
+        return age(table) >= cacheTtlMs;
+    }
+
+    private static long age(final RateTable table) {
+        return Duration.between(table.getFetchedAt(), Instant.now()).toMillis();
+    }
+
+    private CompletableFuture<RateTable> fetchAndCache(final String base, final RequestTiming timing) {
+        return fetchRateTable(base, timing).thenApply(table -> {
+            rateTableCache.put(base, table);
+            eventPublisher.publishEvent(new RateTableUpdatedEvent(table));
+            return table;
+        });
+    }
 
-        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-            return Collections.emptyMap();
+    /**
+     * Reads the requested symbols straight from the table by registry index.
+     */
+    private Map<String, Double> selectRates(final RateTable table, final RateKey key) {
+        final Map<String, Double> selected = new HashMap<>(capacity(key.size()));
+        for (int i = key.nextSymbol(0); i >= 0; i = key.nextSymbol(i + 1)) {
+            final double rate = table.rate(i);
+            if (!Double.isNaN(rate)) {
+                selected.put(CurrencyRegistry.code(i), rate);
+            }
         }
+        return selected;
+    }
 
-        @SuppressWarnings("unchecked")
-        final Map<String, Double> allRates = (Map<String, Double>) response.getBody().get(base.toLowerCase());
-        if (allRates == null) {
-            log.warn("freeExchange returned no rates for base {}", base);
-            return Collections.emptyMap();
+    /**
+     * Computes base/symbol cross rates from the pivot table. The cross matrix of a
+     * pivot table is rank one, so each cell is derived on read with a single division
+     * and the immutable cached pivot table acts as the atomically swapped snapshot.
+     */
+    private Map<String, Double> selectCrossRates(final RateTable pivot, final RateKey key) {
+        final double baseRate = pivotRate(pivot, key.getBase());
+        if (Double.isNaN(baseRate) || baseRate == 0) {
+            throw new ExchangeRateException("No exchange rates available for base " + key.getBase());
         }
 
-        return Arrays.stream(symbols.split(","))
-                .filter(symbol -> allRates.containsKey(symbol.toLowerCase()))
-                .collect(Collectors.toMap(
-                        String::toUpperCase,
-                        symbol -> allRates.get(symbol.toLowerCase())
-                ));
+        final int pivotIndex = CurrencyRegistry.indexOf(pivot.getBase());
+        final Map<String, Double> selected = new HashMap<>(capacity(key.size()));
+        for (int i = key.nextSymbol(0); i >= 0; i = key.nextSymbol(i + 1)) {
+            final double rate = i == pivotIndex ? 1.0 : pivot.rate(i);
+            if (!Double.isNaN(rate)) {
+                selected.put(CurrencyRegistry.code(i), rate / baseRate);
+            }
+        }
+        return selected;
     }
 
-    private Map<String, Double> fetchFrankfurterRates(final String base, final String symbols) {
-        final String url = String.format(
-                "https://api.frankfurter.dev/v1/latest?base=%s&symbols=%s",
-                base, symbols
-        );
+    private static int capacity(final int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
 
-        final ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url, HttpMethod.GET, null,
-                new ParameterizedTypeReference<>() {
-                }
-        );
+    private double pivotRate(final RateTable pivot, final String code) {
+        return code.equals(pivot.getBase()) ? 1.0 : pivot.rate(code);
+    }
 
-        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-            return Collections.emptyMap();
+    private CompletableFuture<RateTable> fetchRateTable(final String base, final RequestTiming timing) {
+        final long start = System.nanoTime();
+        metricsService.incrementTotalRequests();
+        log.debug("Cache miss for base={}", base);
+
+        final List<RateProvider> providers = providerRegistry.providersFor(base, triangulationEnabled);
+        final List<CompletableFuture<double[]>> futures = providers.stream()
+                .map(provider -> fetchRates(provider, base))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            timing.record(RequestTiming.Phase.UPSTREAM, start);
+            final List<double[]> results = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+
+            if (results.stream().allMatch(Rates::isEmpty)) {
+                log.error("All exchange rate providers failed to return data");
+                throw new ExchangeRateException("Unable to fetch exchange rates from any provider");
+            }
+
+            final long averaging = System.nanoTime();
+            final double[] averaged = calculateAverageRates(providers, results);
+            timing.record(RequestTiming.Phase.AVERAGE, averaging);
+            return RateTable.builder()
+                    .base(base)
+                    .rates(averaged)
+                    .fetchedAt(Instant.now())
+                    .build();
+        });
+    }
+
+    /**
+     * Calls one provider behind its circuit breaker. Calls to an open breaker are skipped,
+     * and calls running past the provider's adaptive timeout count as failures.
+     */
+    private CompletableFuture<double[]> fetchRates(final RateProvider provider, final String base) {
+        final String apiName = provider.getName();
+        final CircuitBreaker circuitBreaker = providerResilience.circuitBreaker(apiName);
+        final long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            metricsService.incrementShortCircuited(apiName);
+            log.debug("{} circuit is open, skipping call", apiName);
+            return CompletableFuture.completedFuture(Rates.NONE);
         }
 
-        @SuppressWarnings("unchecked")
-        final Map<String, Double> rates = (Map<String, Double>) response.getBody().get("rates");
+        final Duration timeout = providerResilience.timeout(provider);
+        final long start = System.currentTimeMillis();
+        metricsService.incrementRequests(apiName);
 
-        return rates != null ? rates : Collections.emptyMap();
+        CompletableFuture<double[]> response;
+        try {
+            response = provider.fetchRates(base);
+        } catch (final RejectedExecutionException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((rates, error) -> {
+                    metricsService.recordTime(apiName, System.currentTimeMillis() - start);
+                    if (error != null) {
+                        recordFailure(apiName, unwrap(error), circuitBreaker, permit, timeout);
+                        return Rates.NONE;
+                    }
+                    circuitBreaker.onSuccess(permit);
+                    if (!Rates.isEmpty(rates)) {
+                        metricsService.incrementResponses(apiName);
+                    }
+                    return rates;
+                });
     }
 
-    private Map<String, Double> calculateAverageRates(final Map<String, Double> rates1, final Map<String, Double> rates2) {
-        final Set<String> allSymbols = new HashSet<>();
-        allSymbols.addAll(rates1.keySet());
-        allSymbols.addAll(rates2.keySet());
+    private void recordFailure(final String apiName, final Throwable error, final CircuitBreaker circuitBreaker,
+            final long permit, final Duration timeout) {
+        if (error instanceof RejectedExecutionException) {
+            circuitBreaker.release(permit);
+            metricsService.incrementRejected(apiName);
+            log.warn("{} executor is saturated, skipping call", apiName);
+        } else if (error instanceof TimeoutException) {
+            circuitBreaker.onFailure(permit);
+            metricsService.incrementErrors(apiName);
+            log.warn("{} API timed out after {} ms", apiName, timeout.toMillis());
+        } else {
+            circuitBreaker.onFailure(permit);
+            metricsService.incrementErrors(apiName);
+            log.warn("{} API failure: {}", apiName, error.getMessage());
+        }
+    }
 
-        return allSymbols.stream().collect(Collectors.toMap(
-                s -> s,
-                s -> {
-                    final Double val1 = rates1.get(s);
-                    final Double val2 = rates2.get(s);
-                    return val1 != null && val2 != null
-                            ? (val1 + val2) / 2
-                            : val1 != null ? val1 : val2;
+    /**
+     * Computes the weighted average of every symbol over the providers that returned it.
+     * Runs as plain loops over the rate arrays, allocating only the result and the weight totals.
+     * Package-private for the benchmarks.
+     */
+    static double[] calculateAverageRates(final List<RateProvider> providers, final List<double[]> results) {
+        final double[] sums = new double[CurrencyRegistry.size()];
+        final double[] weights = new double[sums.length];
+        for (int i = 0; i < providers.size(); i++) {
+            final double weight = providers.get(i).getWeight();
+            final double[] rates = results.get(i);
+            for (int j = 0; j < rates.length; j++) {
+                if (!Double.isNaN(rates[j])) {
+                    sums[j] += rates[j] * weight;
+                    weights[j] += weight;
                 }
-        ));
+            }
+        }
+
+        for (int j = 0; j < sums.length; j++) {
+            sums[j] = weights[j] > 0 ? sums[j] / weights[j] : Double.NaN;
+        }
+        return sums;
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static String errorMessage(final Throwable error) {
+        return error instanceof ExchangeRateException || error instanceof IllegalArgumentException
+                ? error.getMessage()
+                : "Exchange rate service unavailable";
+    }
+
+    private static <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = unwrap(e);
+            if (cause instanceof ExchangeRateException) {
+                throw (ExchangeRateException) cause;
+            }
+            if (cause instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) cause;
+            }
+            log.error("Failed to fetch rates: {}", cause.getMessage());
+            throw new ExchangeRateException("Exchange rate service unavailable", cause);
+        }
     }
 
 }
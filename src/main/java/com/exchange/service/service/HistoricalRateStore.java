@@ -0,0 +1,505 @@
+package com.exchange.service.service;
+
+import com.exchange.service.util.CurrencyRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only store of daily EUR reference rates in a memory-mapped columnar file.
+ * Every currency owns one column of doubles indexed by day since {@link #FIRST_DAY}, and a status
+ * column records which days were loaded, so a range of one currency is a contiguous slice of the file.
+ * Columns are assigned to currencies as they first appear; days are written once and never rewritten.
+ * The file is sparse, so days and columns never written take no disk space.
+ * Days fetched without final rates, such as today or an empty answer, are not written; they are only
+ * reported as loaded for {@code exchange.history.recheck-ms}, so they are fetched again at most that often.
+ *
+ * <p>File layout, big-endian: magic, version, day count, column capacity, the currency code of every
+ * column, the status column with one byte per day, then the rate columns. A rate of zero means none.
+ * Raising {@code exchange.history.max-currencies} migrates the file to the larger capacity; lowering it
+ * keeps the capacity of the file.
+ */
+@Slf4j
+@Component
+public class HistoricalRateStore {
+
+    /**
+     * Currency all stored rates are quoted against.
+     */
+    public static final String PIVOT = "EUR";
+
+    /**
+     * First day of the ECB reference rates.
+     */
+    public static final LocalDate FIRST_DAY = LocalDate.of(1999, 1, 4);
+
+    private static final LocalDate END_DAY = LocalDate.of(2100, 1, 1);
+    private static final int MAGIC = 0x52484331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 4;
+    private static final int CODE_BYTES = 8;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte CLOSED = 1;
+    private static final byte PUBLISHED = 2;
+    private static final int PIVOT_COLUMN = -2;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final Map<Integer, Long> checkedUntil = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int days;
+    private int statusOffset;
+    private int dataOffset;
+    private int capacity;
+    private int columnCount;
+
+    @Value("${exchange.history.path:rate-history.dat}")
+    private String path;
+
+    @Value("${exchange.history.max-currencies:64}")
+    private int maxCurrencies;
+
+    @Value("${exchange.history.recheck-ms:900000}")
+    private long recheckMs;
+
+    /**
+     * Maps the store file, creating it if needed. A file with fewer columns than configured is
+     * migrated to the configured capacity; a file that is not a store of this version is discarded.
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        days = (int) ChronoUnit.DAYS.between(FIRST_DAY, END_DAY);
+        size(maxCurrencies);
+        final Path file = Paths.get(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        channel = openChannel(file);
+        int stored = storedCapacity(channel);
+        if (stored < 0 && channel.size() > 0) {
+            log.warn("Discarding historical rate store {} with an unknown layout", file);
+            channel.truncate(0);
+        } else if (stored > 0 && stored < maxCurrencies) {
+            migrate(file, stored, maxCurrencies);
+            stored = maxCurrencies;
+        }
+
+        capacity = Math.max(stored, maxCurrencies);
+        statusOffset = statusOffset(capacity);
+        dataOffset = dataOffset(capacity);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+        if (stored > 0) {
+            loadColumns();
+        } else {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, days).putInt(12, capacity);
+        }
+        log.info("Opened historical rate store {} with {} currencies", file, columns.size());
+    }
+
+    /**
+     * Flushes the store to disk.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the first day of a range that was not loaded yet, or was checked too long ago.
+     *
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return the first missing day, or null if the whole range is loaded
+     */
+    public LocalDate firstMissing(final LocalDate from, final LocalDate to) {
+        final int last = index(to);
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            for (int day = index(from); day <= last; day++) {
+                if (missing(day, now)) {
+                    return FIRST_DAY.plusDays(day);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the last day of a range that was not loaded yet, or was checked too long ago.
+     *
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return the last missing day, or null if the whole range is loaded
+     */
+    public LocalDate lastMissing(final LocalDate from, final LocalDate to) {
+        final int first = index(from);
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            for (int day = index(to); day >= first; day--) {
+                if (missing(day, now)) {
+                    return FIRST_DAY.plusDays(day);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends the rates fetched for a range. Days already loaded are left untouched. Days of the
+     * range without rates are recorded as closed once they are settled, and otherwise are only
+     * marked as checked, see {@link #recordChecked(LocalDate, LocalDate)}.
+     *
+     * @param from first day of the fetched range, inclusive
+     * @param to last day of the fetched range, inclusive
+     * @param rates EUR rates by day, indexed by {@link CurrencyRegistry}
+     * @param settledBefore days before this one have final rates
+     */
+    public void append(final LocalDate from, final LocalDate to, final SortedMap<LocalDate, double[]> rates,
+            final LocalDate settledBefore) {
+        final int last = index(to);
+        final long settled = ChronoUnit.DAYS.between(FIRST_DAY, settledBefore);
+        final long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            checkedUntil.values().removeIf(until -> until <= now);
+            for (int day = index(from); day <= last; day++) {
+                if (buffer.get(statusOffset + day) != UNKNOWN) {
+                    continue;
+                }
+
+                final double[] dayRates = rates.get(FIRST_DAY.plusDays(day));
+                if (dayRates != null && write(day, dayRates)) {
+                    buffer.put(statusOffset + day, PUBLISHED);
+                    checkedUntil.remove(day);
+                } else if (day < settled) {
+                    buffer.put(statusOffset + day, CLOSED);
+                    checkedUntil.remove(day);
+                } else {
+                    checkedUntil.put(day, now + recheckMs);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that a range was fetched without getting final rates for its missing days, for instance
+     * because the provider answered with no rates at all. Those days are not reported as missing for
+     * {@code exchange.history.recheck-ms}, so repeated queries over them do not go upstream every time.
+     *
+     * @param from first day of the fetched range, inclusive
+     * @param to last day of the fetched range, inclusive
+     */
+    public void recordChecked(final LocalDate from, final LocalDate to) {
+        final int last = index(to);
+        final long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            checkedUntil.values().removeIf(until -> until <= now);
+            for (int day = index(from); day <= last; day++) {
+                if (buffer.get(statusOffset + day) == UNKNOWN) {
+                    checkedUntil.put(day, now + recheckMs);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the rates of a base currency against symbols for every day of a range with published
+     * rates, as cross rates of the EUR columns. Only the slices of the columns involved are touched.
+     *
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @param base upper-case base currency code
+     * @param symbols upper-case target currency codes
+     * @return rates by day; days without rates for the base are absent
+     */
+    public SortedMap<LocalDate, Map<String, Double>> read(final LocalDate from, final LocalDate to, final String base,
+            final List<String> symbols) {
+        final SortedMap<LocalDate, Map<String, Double>> result = new TreeMap<>();
+        final int first = index(from);
+        final int last = index(to);
+        lock.readLock().lock();
+        try {
+            final int baseColumn = column(base);
+            final int[] symbolColumns = symbols.stream().mapToInt(this::column).toArray();
+            for (int day = first; day <= last; day++) {
+                if (buffer.get(statusOffset + day) != PUBLISHED) {
+                    continue;
+                }
+                final double baseRate = rate(baseColumn, day);
+                if (baseRate == 0) {
+                    continue;
+                }
+
+                final Map<String, Double> dayRates = new HashMap<>();
+                for (int i = 0; i < symbolColumns.length; i++) {
+                    final double rate = rate(symbolColumns[i], day);
+                    if (rate != 0) {
+                        dayRates.put(symbols.get(i), rate / baseRate);
+                    }
+                }
+                result.put(FIRST_DAY.plusDays(day), dayRates);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the store has rates for a currency.
+     *
+     * @param code upper-case currency code
+     * @return true for the pivot and every currency with a column
+     */
+    public boolean knows(final String code) {
+        lock.readLock().lock();
+        try {
+            return column(code) != -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean missing(final int day, final long now) {
+        if (buffer.get(statusOffset + day) != UNKNOWN) {
+            return false;
+        }
+        final Long until = checkedUntil.get(day);
+        return until == null || until <= now;
+    }
+
+    /**
+     * Reads one cell; the pivot column is implicit and always 1.
+     */
+    private double rate(final int column, final int day) {
+        if (column == PIVOT_COLUMN) {
+            return 1.0;
+        }
+        return column < 0 ? 0 : buffer.getDouble(dataOffset + (column * days + day) * Double.BYTES);
+    }
+
+    private int column(final String code) {
+        return PIVOT.equals(code) ? PIVOT_COLUMN : columns.getOrDefault(code, -1);
+    }
+
+    /**
+     * Writes the rates of one day, assigning columns to new currencies.
+     *
+     * @return true if at least one rate was written
+     */
+    private boolean write(final int day, final double[] dayRates) {
+        boolean written = false;
+        for (int i = 0; i < dayRates.length; i++) {
+            final double rate = dayRates[i];
+            if (Double.isNaN(rate) || rate <= 0) {
+                continue;
+            }
+            final int column = columnFor(CurrencyRegistry.code(i));
+            if (column >= 0) {
+                buffer.putDouble(dataOffset + (column * days + day) * Double.BYTES, rate);
+                written = true;
+            }
+        }
+        return written;
+    }
+
+    private int columnFor(final String code) {
+        if (PIVOT.equals(code)) {
+            return -1;
+        }
+        final Integer existing = columns.get(code);
+        if (existing != null) {
+            return existing;
+        }
+        final byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > CODE_BYTES - 1) {
+            log.warn("Currency code {} is too long for the historical rate store, ignoring it", code);
+            columns.put(code, -1);
+            return -1;
+        }
+        if (columnCount >= capacity) {
+            log.warn("Historical rate store is full, ignoring {}", code);
+            columns.put(code, -1);
+            return -1;
+        }
+
+        final int column = columnCount++;
+        final int offset = HEADER_BYTES + column * CODE_BYTES;
+        buffer.put(offset, (byte) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(offset + 1 + i, bytes[i]);
+        }
+        columns.put(code, column);
+        return column;
+    }
+
+    private void loadColumns() {
+        for (int column = 0; column < capacity; column++) {
+            final int offset = HEADER_BYTES + column * CODE_BYTES;
+            final int length = buffer.get(offset);
+            if (length == 0) {
+                return;
+            }
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + 1 + i);
+            }
+            columns.put(new String(bytes, StandardCharsets.UTF_8), column);
+            columnCount++;
+        }
+    }
+
+    /**
+     * Reads the column capacity of a store file.
+     *
+     * @return the capacity, or -1 if the file is empty or not a store of this version
+     */
+    private int storedCapacity(final FileChannel file) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        file.read(header, 0);
+        final boolean valid = !header.hasRemaining()
+                && header.getInt(0) == MAGIC
+                && header.getInt(4) == VERSION
+                && header.getInt(8) == days
+                && header.getInt(12) > 0;
+        return valid ? header.getInt(12) : -1;
+    }
+
+    /**
+     * Copies the store into a file with more columns, then replaces the store with it.
+     * Codes, status and the rate columns in use keep their values; only their offsets move.
+     */
+    private void migrate(final Path file, final int from, final int to) throws IOException {
+        final Path migrated = file.resolveSibling(file.getFileName() + ".migrating");
+        try (FileChannel target = FileChannel.open(migrated, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putInt(days).putInt(to);
+            header.flip();
+            target.write(header, 0);
+            copy(channel, HEADER_BYTES, target, HEADER_BYTES, (long) from * CODE_BYTES);
+            copy(channel, statusOffset(from), target, statusOffset(to), days);
+            copy(channel, dataOffset(from), target, dataOffset(to), (long) usedColumns(from) * days * Double.BYTES);
+            target.force(true);
+        }
+        channel.close();
+        Files.move(migrated, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = openChannel(file);
+        log.info("Migrated historical rate store {} from {} to {} currencies", file, from, to);
+    }
+
+    private int usedColumns(final int stored) throws IOException {
+        final ByteBuffer length = ByteBuffer.allocate(1);
+        int used = 0;
+        while (used < stored) {
+            length.clear();
+            channel.read(length, HEADER_BYTES + (long) used * CODE_BYTES);
+            if (length.hasRemaining() || length.get(0) == 0) {
+                break;
+            }
+            used++;
+        }
+        return used;
+    }
+
+    private static void copy(final FileChannel source, final long from, final FileChannel target, final long to,
+            final long count) throws IOException {
+        long copied = 0;
+        while (copied < count) {
+            final long transferred = source.transferTo(from + copied, count - copied, target.position(to + copied));
+            if (transferred <= 0) {
+                break;
+            }
+            copied += transferred;
+        }
+    }
+
+    private static FileChannel openChannel(final Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private int statusOffset(final int columnCapacity) {
+        return align(HEADER_BYTES + columnCapacity * CODE_BYTES);
+    }
+
+    private int dataOffset(final int columnCapacity) {
+        return align(statusOffset(columnCapacity) + days);
+    }
+
+    /**
+     * Gets the mapped size of a store.
+     *
+     * @throws IllegalStateException if it does not fit a single mapping
+     */
+    private long size(final int columnCapacity) {
+        final long size = dataOffset(columnCapacity) + (long) columnCapacity * days * Double.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("exchange.history.max-currencies is too large");
+        }
+        return size;
+    }
+
+    /**
+     * Gets the day index of a date.
+     *
+     * @throws IllegalArgumentException if the date is outside the store
+     */
+    private int index(final LocalDate date) {
+        final long day = ChronoUnit.DAYS.between(FIRST_DAY, date);
+        if (day < 0 || day >= days) {
+            throw new IllegalArgumentException("No historical rates for " + date);
+        }
+        return (int) day;
+    }
+
+    private static int align(final int offset) {
+        return (offset + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+}
@@ -1,64 +1,141 @@
 package com.exchange.service.service;
 
+import com.exchange.service.model.LatencyPercentiles;
+import com.exchange.service.provider.CircuitBreaker;
+import com.exchange.service.util.RequestTiming;
+import com.exchange.service.util.RollingHistogram;
+
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Records the service's metrics in Micrometer and reads them back for the metrics endpoint.
+ * Meters are resolved once: global meters are fields set at startup, and each provider's meters
+ * are held by one object looked up by provider name, so recording builds no keys and does a single
+ * map lookup at most.
+ */
 @Service
 @RequiredArgsConstructor
 public class MetricsService {
 
-    private static final String FREE = "free_exchange";
-    private static final String FRANK = "frankfurter";
-
     private static final String API_REQUESTS_TOTAL = "api.requests.total";
+    private static final String FETCH_COALESCED = "rates.fetch.coalesced";
+    private static final String CONVERSION_RECORDS = "conversion.records";
+    private static final String STALE_SERVED = "rates.stale.served";
+    private static final String REQUEST_LATENCY = "rates.request.latency";
+    private static final String REQUEST_PHASE = "rates.request.phase";
+    private static final String API_LATENCY = "api.latency";
+
+    private static final Duration LATENCY_BUCKET = Duration.ofSeconds(15);
+    private static final String[] WINDOW_NAMES = {"1m", "5m", "15m"};
+    private static final Duration[] WINDOWS = {Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15)};
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final RequestTiming.Phase[] PHASES = RequestTiming.Phase.values();
 
     private final MeterRegistry registry;
 
-    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
-    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
-    private final Map<String, ApiStats> apiStats = Map.of(
-            FREE, new ApiStats(),
-            FRANK, new ApiStats()
-    );
+    private final Map<String, ProviderMeters> providers = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Timer[] phaseTimers = new Timer[PHASES.length];
+    private Counter totalRequests;
+    private Counter coalescedRequests;
+    private Counter conversionRecords;
+    private Counter staleServed;
+    private DistributionSummary fetchCallers;
+    private RollingHistogram requestLatency;
 
     /**
      * Initializes all counters and timer.
      */
     @PostConstruct
     public void init() {
-        registerCounter(API_REQUESTS_TOTAL, "Total requests");
-
-        for (final String api : apiStats.keySet()) {
-            registerCounter("api.requests", "API requests", "source", api);
-            registerCounter("api.responses", "API responses", "source", api);
-            registerCounter("api.errors", "API errors", "source", api);
-            registerTimer("api.time", "API response time", "source", api);
+        totalRequests = Counter.builder(API_REQUESTS_TOTAL).description("Total requests").register(registry);
+        coalescedRequests = Counter.builder(FETCH_COALESCED)
+                .description("Callers collapsed into another caller's in-flight fetch")
+                .register(registry);
+        conversionRecords = Counter.builder(CONVERSION_RECORDS)
+                .description("Records converted by the conversion endpoint")
+                .register(registry);
+        staleServed = Counter.builder(STALE_SERVED).description("Rate tables served past their TTL").register(registry);
+        fetchCallers = DistributionSummary.builder("rates.fetch.callers")
+                .description("Callers served per upstream fetch")
+                .register(registry);
+        requestLatency = registerLatency(REQUEST_LATENCY, "End-to-end exchange rate request time", Tags.empty());
+        for (final RequestTiming.Phase phase : PHASES) {
+            phaseTimers[phase.ordinal()] = Timer.builder(REQUEST_PHASE)
+                    .tag("phase", phase.getMetricName())
+                    .description("Exchange rate request time per phase")
+                    .register(registry);
         }
     }
 
-    private void registerCounter(final String datasource, final String desc) {
-        counters.put(datasource, Counter.builder(datasource).description(desc).register(registry));
+    /**
+     * Registers the counters, timer and stats of a rate provider.
+     */
+    public void registerProvider(final String api) {
+        providers.computeIfAbsent(api, ignored -> new ProviderMeters(api));
+    }
+
+    /**
+     * Creates a rolling latency histogram and exports its percentiles of every window as gauges,
+     * tagged with the window and the quantile.
+     */
+    private RollingHistogram registerLatency(final String name, final String desc, final Tags tags) {
+        final RollingHistogram histogram = new RollingHistogram(LATENCY_BUCKET, WINDOWS[WINDOWS.length - 1]);
+        for (int i = 0; i < WINDOWS.length; i++) {
+            final Duration window = WINDOWS[i];
+            for (final double quantile : QUANTILES) {
+                Gauge.builder(name, histogram, h -> h.percentile(window, quantile))
+                        .tags(tags)
+                        .tag("window", WINDOW_NAMES[i])
+                        .tag("quantile", Double.toString(quantile))
+                        .baseUnit("milliseconds")
+                        .description(desc)
+                        .register(registry);
+            }
+        }
+        return histogram;
     }
 
-    private void registerCounter(final String datasource, final String desc, final String tag, final String value) {
-        counters.put(metricKey(datasource, value),
-                Counter.builder(datasource).tag(tag, value).description(desc).register(registry));
+    /**
+     * Exports queue depth and active threads of a provider executor.
+     */
+    public void registerExecutor(final String api, final ThreadPoolExecutor executor) {
+        gauges.put(metricKey("executor.queue.depth", api),
+                Gauge.builder("executor.queue.depth", executor, e -> e.getQueue().size())
+                        .tag("source", api).description("Queued provider calls").register(registry));
+        gauges.put(metricKey("executor.active", api),
+                Gauge.builder("executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                        .tag("source", api).description("Active provider call threads").register(registry));
     }
 
-    private void registerTimer(final String datasource, final String desc, final String tag, final String value) {
-        timers.put(metricKey(datasource, value),
-                Timer.builder(datasource).tag(tag, value).description(desc).register(registry));
+    /**
+     * Registers the state gauge of a provider circuit breaker: 0 closed, 1 half-open, 2 open.
+     */
+    public void registerCircuitBreaker(final String api, final CircuitBreaker circuitBreaker) {
+        circuitBreakers.put(api, circuitBreaker);
+        gauges.put(metricKey("circuit.state", api),
+                Gauge.builder("circuit.state", circuitBreaker, c -> c.getState().ordinal())
+                        .tag("source", api).description("Provider circuit breaker state").register(registry));
     }
 
     private String metricKey(final String datasource, final String value) {
@@ -69,13 +146,20 @@ public class MetricsService {
      * Increments the total request counter.
      */
     public void incrementTotalRequests() {
-        inc(API_REQUESTS_TOTAL);
+        totalRequests.increment();
+    }
+
+    /**
+     * Adds converted records to the conversion counter.
+     */
+    public void incrementConversions(final long records) {
+        conversionRecords.increment(records);
     }
 
-    private void inc(final String datasource) {
-        final Counter counter = counters.get(datasource);
-        if (counter != null) {
-            counter.increment();
+    private void inc(final String api, final Function<ProviderMeters, Counter> counter) {
+        final ProviderMeters meters = providers.get(api);
+        if (meters != null) {
+            counter.apply(meters).increment();
         }
     }
 
@@ -83,34 +167,128 @@ public class MetricsService {
      * Increments the request counter for the given API.
      */
     public void incrementRequests(final String api) {
-        inc(metricKey("api.requests", api));
+        inc(api, meters -> meters.requests);
     }
 
     /**
      * Increments the response counter for the given API.
      */
     public void incrementResponses(final String api) {
-        inc(metricKey("api.responses", api));
+        inc(api, meters -> meters.responses);
     }
 
     /**
      * Increments the error counter for the given API.
      */
     public void incrementErrors(final String api) {
-        inc(metricKey("api.errors", api));
+        inc(api, meters -> meters.errors);
     }
 
     /**
-     * Records the response time and tracks average time for the API.
+     * Increments the rejected call counter for the given API.
+     */
+    public void incrementRejected(final String api) {
+        inc(api, meters -> meters.rejected);
+    }
+
+    /**
+     * Increments the counter of fetches answered with 304 Not Modified for the given API.
+     */
+    public void incrementNotModified(final String api) {
+        inc(api, meters -> meters.notModified);
+    }
+
+    /**
+     * Increments the counter of calls skipped by an open circuit breaker for the given API.
+     */
+    public void incrementShortCircuited(final String api) {
+        inc(api, meters -> meters.shortCircuited);
+    }
+
+    /**
+     * Increments the hedge request counter for the given API.
+     */
+    public void incrementHedges(final String api) {
+        inc(api, meters -> meters.hedges);
+    }
+
+    /**
+     * Increments the counter of hedge requests that answered first for the given API.
+     */
+    public void incrementHedgesWon(final String api) {
+        inc(api, meters -> meters.hedgesWon);
+    }
+
+    /**
+     * Records the response time and tracks average time and percentiles for the API.
      */
     public void recordTime(final String api, final long millis) {
-        final Timer timer = timers.get(metricKey("api.time", api));
-        if (timer != null) {
-            timer.record(millis, TimeUnit.MILLISECONDS);
+        final ProviderMeters meters = providers.get(api);
+        if (meters != null) {
+            meters.time.record(millis, TimeUnit.MILLISECONDS);
+            meters.stats.record(millis);
+            meters.latency.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    /**
+     * Records how long a call waited on the API executor before it started.
+     *
+     * @param api API name
+     * @param nanos queue wait in nanoseconds
+     */
+    public void recordQueueWait(final String api, final long nanos) {
+        final ProviderMeters meters = providers.get(api);
+        if (meters != null) {
+            meters.queueTime.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records the end-to-end time of an exchange rate request.
+     *
+     * @param nanos request time in nanoseconds
+     */
+    public void recordRequestTime(final long nanos) {
+        requestLatency.record(nanos);
+    }
+
+    /**
+     * Records the time of every phase an exchange rate request went through.
+     */
+    public void recordPhases(final RequestTiming timing) {
+        for (final RequestTiming.Phase phase : PHASES) {
+            if (timing.ran(phase)) {
+                phaseTimers[phase.ordinal()].record(timing.get(phase), TimeUnit.NANOSECONDS);
+            }
         }
-        final ApiStats stats = apiStats.get(api);
-        if (stats != null) {
-            stats.record(millis);
+    }
+
+    /**
+     * Records the parse time and heap allocation of an API response.
+     *
+     * @param api API name
+     * @param nanos parse time in nanoseconds
+     * @param allocatedBytes bytes allocated by the parsing thread, negative if unknown
+     */
+    public void recordParse(final String api, final long nanos, final long allocatedBytes) {
+        final ProviderMeters meters = providers.get(api);
+        if (meters == null) {
+            return;
+        }
+        meters.parseTime.record(nanos, TimeUnit.NANOSECONDS);
+        if (allocatedBytes >= 0) {
+            meters.parseAllocated.record(allocatedBytes);
+        }
+    }
+
+    /**
+     * Records how many callers were served by a single upstream fetch.
+     */
+    public void recordFetchCallers(final int callers) {
+        fetchCallers.record(callers);
+        if (callers > 1) {
+            coalescedRequests.increment(callers - 1);
         }
     }
 
@@ -118,49 +296,228 @@ public class MetricsService {
      * Gets the total request count.
      */
     public long getTotalRequests() {
-        return getCount(API_REQUESTS_TOTAL);
+        return (long) totalRequests.count();
+    }
+
+    private long getCount(final String api, final Function<ProviderMeters, Counter> counter) {
+        final ProviderMeters meters = providers.get(api);
+        return meters != null ? (long) counter.apply(meters).count() : 0;
     }
 
-    private long getCount(final String datasource) {
-        final Counter counter = counters.get(datasource);
-        return counter != null ? (long) counter.count() : 0;
+    /**
+     * Increments the count of rate tables served past their TTL.
+     */
+    public void incrementStaleServed() {
+        staleServed.increment();
+    }
+
+    /**
+     * Gets the number of rate tables served past their TTL.
+     */
+    public long getStaleServed() {
+        return (long) staleServed.count();
+    }
+
+    /**
+     * Gets the number of callers collapsed into another caller's in-flight fetch.
+     */
+    public long getCoalescedRequests() {
+        return (long) coalescedRequests.count();
     }
 
     /**
      * Gets the request count for the API.
      */
     public long getRequests(final String api) {
-        return getCount(metricKey("api.requests", api));
+        return getCount(api, meters -> meters.requests);
     }
 
     /**
      * Gets the response count for the API.
      */
     public long getResponses(final String api) {
-        return getCount(metricKey("api.responses", api));
+        return getCount(api, meters -> meters.responses);
     }
 
     /**
      * Gets the error count for the API.
      */
     public long getErrors(final String api) {
-        return getCount(metricKey("api.errors", api));
+        return getCount(api, meters -> meters.errors);
+    }
+
+    /**
+     * Gets the rejected call count for the API.
+     */
+    public long getRejected(final String api) {
+        return getCount(api, meters -> meters.rejected);
+    }
+
+    /**
+     * Gets the count of fetches answered with 304 Not Modified for the API.
+     */
+    public long getNotModified(final String api) {
+        return getCount(api, meters -> meters.notModified);
+    }
+
+    /**
+     * Gets the count of calls skipped by an open circuit breaker for the API.
+     */
+    public long getShortCircuited(final String api) {
+        return getCount(api, meters -> meters.shortCircuited);
+    }
+
+    /**
+     * Gets the circuit breaker state of the API.
+     */
+    public String getCircuitState(final String api) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(api);
+        return (circuitBreaker != null ? circuitBreaker.getState() : CircuitBreaker.State.CLOSED).name();
+    }
+
+    /**
+     * Gets the hedge request count for the API.
+     */
+    public long getHedges(final String api) {
+        return getCount(api, meters -> meters.hedges);
+    }
+
+    /**
+     * Gets the count of hedge requests that answered first for the API.
+     */
+    public long getHedgesWon(final String api) {
+        return getCount(api, meters -> meters.hedgesWon);
+    }
+
+    /**
+     * Gets the number of calls queued on the API executor.
+     */
+    public long getQueueDepth(final String api) {
+        return getGauge(metricKey("executor.queue.depth", api));
+    }
+
+    /**
+     * Gets the number of threads running calls on the API executor.
+     */
+    public long getActiveThreads(final String api) {
+        return getGauge(metricKey("executor.active", api));
+    }
+
+    private long getGauge(final String key) {
+        final Gauge gauge = gauges.get(key);
+        return gauge != null ? (long) gauge.value() : 0;
+    }
+
+    /**
+     * Gets the average response parse time for the API in milliseconds.
+     */
+    public double getAvgParseTime(final String api) {
+        final ProviderMeters meters = providers.get(api);
+        return meters != null ? meters.parseTime.mean(TimeUnit.MILLISECONDS) : 0;
+    }
+
+    /**
+     * Gets the average bytes allocated while parsing a response of the API.
+     */
+    public double getAvgParseAllocated(final String api) {
+        final ProviderMeters meters = providers.get(api);
+        return meters != null ? meters.parseAllocated.mean() : 0;
     }
 
     /**
      * Gets the average response time for the API.
      */
     public double getAvgTime(final String api) {
-        final ApiStats stats = apiStats.get(api);
-        return stats != null ? stats.avgTime() : 0;
+        final ProviderMeters meters = providers.get(api);
+        return meters != null ? meters.stats.avgTime() : 0;
+    }
+
+    /**
+     * Gets the response time percentiles of the API for every rolling window.
+     */
+    public Map<String, LatencyPercentiles> getResponseTimePercentiles(final String api) {
+        final ProviderMeters meters = providers.get(api);
+        return percentiles(meters != null ? meters.latency : null);
+    }
+
+    /**
+     * Gets the end-to-end exchange rate request time percentiles for every rolling window.
+     */
+    public Map<String, LatencyPercentiles> getRequestTimePercentiles() {
+        return percentiles(requestLatency);
+    }
+
+    private static Map<String, LatencyPercentiles> percentiles(final RollingHistogram histogram) {
+        final Map<String, LatencyPercentiles> byWindow = new LinkedHashMap<>();
+        for (int i = 0; i < WINDOWS.length; i++) {
+            final Duration window = WINDOWS[i];
+            byWindow.put(WINDOW_NAMES[i], histogram == null
+                    ? LatencyPercentiles.builder().build()
+                    : LatencyPercentiles.builder()
+                            .count(histogram.snapshot(window).getTotalCount())
+                            .p50(histogram.percentile(window, QUANTILES[0]))
+                            .p90(histogram.percentile(window, QUANTILES[1]))
+                            .p99(histogram.percentile(window, QUANTILES[2]))
+                            .p999(histogram.percentile(window, QUANTILES[3]))
+                            .build());
+        }
+        return byWindow;
     }
 
     /**
      * Tracks the last response time in ms.
      */
     public long getLastTime(final String api) {
-        final ApiStats stats = apiStats.get(api);
-        return stats != null ? stats.lastResponseTime() : 0;
+        final ProviderMeters meters = providers.get(api);
+        return meters != null ? meters.stats.lastResponseTime() : 0;
+    }
+
+    /**
+     * Meters of one rate provider, registered together and resolved with one lookup.
+     */
+    private final class ProviderMeters {
+
+        private final Counter requests;
+        private final Counter responses;
+        private final Counter errors;
+        private final Counter rejected;
+        private final Counter hedges;
+        private final Counter hedgesWon;
+        private final Counter notModified;
+        private final Counter shortCircuited;
+        private final Timer time;
+        private final Timer parseTime;
+        private final Timer queueTime;
+        private final DistributionSummary parseAllocated;
+        private final ApiStats stats = new ApiStats();
+        private final RollingHistogram latency;
+
+        ProviderMeters(final String api) {
+            requests = counter("api.requests", "API requests", api);
+            responses = counter("api.responses", "API responses", api);
+            errors = counter("api.errors", "API errors", api);
+            rejected = counter("api.rejected", "API calls rejected by a full provider executor", api);
+            hedges = counter("api.hedges", "Hedge requests sent", api);
+            hedgesWon = counter("api.hedges.won", "Hedge requests answering first", api);
+            notModified = counter("api.not.modified", "API fetches answered with 304 Not Modified", api);
+            shortCircuited = counter("api.short.circuited", "API calls skipped by an open circuit breaker", api);
+            time = timer("api.time", "API response time", api);
+            parseTime = timer("api.parse.time", "API response parse time", api);
+            queueTime = timer("api.queue.time", "Time API calls wait for a provider executor thread", api);
+            parseAllocated = DistributionSummary.builder("api.parse.allocated")
+                    .tag("source", api).baseUnit("bytes").description("Heap allocated while parsing an API response")
+                    .register(registry);
+            latency = registerLatency(API_LATENCY, "API response time", Tags.of("source", api));
+        }
+
+        private Counter counter(final String name, final String desc, final String api) {
+            return Counter.builder(name).tag("source", api).description(desc).register(registry);
+        }
+
+        private Timer timer(final String name, final String desc, final String api) {
+            return Timer.builder(name).tag("source", api).description(desc).register(registry);
+        }
+
     }
 
     /**
@@ -0,0 +1,421 @@
+package com.exchange.service.service;
+
+import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.RateKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes rate updates to Server-Sent Events subscribers.
+ * Subscribers of the same base and symbol set, compared as a {@link RateKey}, share a group.
+ * When a rate table is refreshed, each affected group computes the rates that changed since its
+ * last push and serializes them once on the push executor. Each member then receives the payload
+ * on the send executor, so a slow client only delays itself.
+ * Work never queues up: a group or member has at most one pending task, and updates arriving
+ * while it waits are merged into it, so the queues are bounded by the number of subscribers
+ * and the latest rates always go out.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateSubscriptionService {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String DELTA_EVENT = "delta";
+
+    private final ExchangeRateService exchangeRateService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<RateKey, SubscriptionGroup> groups = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private ExecutorService pushExecutor;
+    private ExecutorService sendExecutor;
+
+    @Value("${exchange.subscriptions.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${exchange.subscriptions.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${exchange.subscriptions.threads:2}")
+    private int threads;
+
+    @Value("${exchange.subscriptions.send-threads:4}")
+    private int sendThreads;
+
+    /**
+     * Creates the push and send executors.
+     */
+    @PostConstruct
+    public void init() {
+        pushExecutor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("rate-push-"));
+        sendExecutor = Executors.newFixedThreadPool(sendThreads, new CustomizableThreadFactory("rate-send-"));
+    }
+
+    /**
+     * Stops the push and send executors.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the rates of a base currency. The first event is a snapshot of all
+     * requested rates; later events carry only the rates that changed.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @return emitter streaming the events
+     * @throws IllegalArgumentException if base or symbols are missing
+     * @throws ExchangeRateException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(final String base, final String symbols) {
+        final RateKey key = RateKey.of(base, symbols);
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ExchangeRateException("Too many rate subscribers");
+        }
+
+        final SseEmitter emitter = createEmitter();
+        final Subscriber subscriber = new Subscriber(key.getBase(), emitter);
+        final SubscriptionGroup group = groups.compute(key, (ignored, existing) -> {
+            final SubscriptionGroup joined = existing != null ? existing : new SubscriptionGroup(key);
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+        emitter.onCompletion(() -> remove(key, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+
+        exchangeRateService.getExchangeRatesAsync(key).whenComplete((response, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                group.seed(response.getRates());
+                subscriber.start(response, serialize(response));
+            } catch (final RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Pushes the changed rates of every group answered by the refreshed table.
+     */
+    @EventListener
+    public void onRateTableUpdated(final RateTableUpdatedEvent event) {
+        final RateTable table = event.getTable();
+        for (final SubscriptionGroup group : groups.values()) {
+            if (exchangeRateService.answers(table, group.base)) {
+                group.offer(table);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of open subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Removes a finished subscriber, dropping its group once the group is empty.
+     */
+    private void remove(final RateKey groupKey, final SseEmitter emitter) {
+        groups.computeIfPresent(groupKey, (ignored, group) -> {
+            if (group.subscribers.removeIf(subscriber -> subscriber.emitter == emitter)) {
+                subscribers.decrementAndGet();
+            }
+            return group.subscribers.isEmpty() ? null : group;
+        });
+    }
+
+    /**
+     * Runs a task, unless the service is shutting down.
+     *
+     * @return false if the task was rejected
+     */
+    private static boolean execute(final ExecutorService executor, final Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            log.debug("Subscription executor is shut down, dropping task");
+            return false;
+        }
+    }
+
+    private String serialize(final ExchangeRateResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize rate update", e);
+        }
+    }
+
+    private static void send(final SseEmitter emitter, final String name, final String json) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON));
+        } catch (final IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Subscribers of one base and symbol set, with the rates last pushed to them.
+     */
+    private final class SubscriptionGroup {
+
+        private final String base;
+        private final String[] symbols;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final double[] sent;
+        private final AtomicReference<RateTable> pending = new AtomicReference<>();
+
+        /**
+         * Keeps symbols that were not registered yet by code, so they are pushed once a
+         * provider reports them.
+         */
+        SubscriptionGroup(final RateKey key) {
+            final String[] unresolved = key.getUnresolved();
+            this.base = key.getBase();
+            this.symbols = new String[key.size() + unresolved.length];
+            int j = 0;
+            for (int i = key.nextSymbol(0); i >= 0; i = key.nextSymbol(i + 1)) {
+                symbols[j++] = CurrencyRegistry.code(i);
+            }
+            System.arraycopy(unresolved, 0, symbols, j, unresolved.length);
+            this.sent = new double[symbols.length];
+            Arrays.fill(sent, Double.NaN);
+        }
+
+        /**
+         * Records rates already sent in a snapshot, so the next push does not repeat them.
+         */
+        synchronized void seed(final Map<String, Double> rates) {
+            for (int i = 0; i < symbols.length; i++) {
+                final Double rate = rates.get(symbols[i]);
+                if (rate != null && Double.isNaN(sent[i])) {
+                    sent[i] = rate;
+                }
+            }
+        }
+
+        /**
+         * Schedules a push of the table. If a push is already pending, the table replaces
+         * the one it was going to push.
+         */
+        void offer(final RateTable table) {
+            if (pending.getAndSet(table) == null && !execute(pushExecutor, this::drain)) {
+                pending.set(null);
+            }
+        }
+
+        /**
+         * Pushes the pending table, then any newer table offered in the meantime.
+         */
+        private void drain() {
+            RateTable table = pending.get();
+            while (true) {
+                try {
+                    push(table);
+                } catch (final RuntimeException e) {
+                    log.warn("Cannot push rate update for {}", base, e);
+                }
+                if (pending.compareAndSet(table, null)) {
+                    return;
+                }
+                table = pending.get();
+            }
+        }
+
+        private synchronized void push(final RateTable table) {
+            final Map<String, Double> changed = new HashMap<>();
+            for (int i = 0; i < symbols.length; i++) {
+                final double rate = exchangeRateService.rate(table, base, symbols[i]);
+                if (!Double.isNaN(rate) && Double.compare(rate, sent[i]) != 0) {
+                    changed.put(symbols[i], rate);
+                    sent[i] = rate;
+                }
+            }
+            if (changed.isEmpty() || subscribers.isEmpty()) {
+                return;
+            }
+
+            final LocalDateTime timestamp = LocalDateTime.ofInstant(table.getFetchedAt(), ZoneId.systemDefault());
+            final String json = serialize(response(base, changed, timestamp));
+            for (final Subscriber subscriber : subscribers) {
+                subscriber.offer(changed, timestamp, json);
+            }
+        }
+
+    }
+
+    private static ExchangeRateResponse response(final String base, final Map<String, Double> rates,
+            final LocalDateTime timestamp) {
+        return ExchangeRateResponse.builder()
+                .base(base)
+                .rates(rates)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    /**
+     * One member of a group, with the changes not yet sent to it. Deltas offered before the
+     * snapshot is ready are held back, so the snapshot is always the first event.
+     */
+    private final class Subscriber {
+
+        private final String base;
+        private final SseEmitter emitter;
+        private Map<String, Double> pending;
+        private LocalDateTime timestamp;
+        private String json;
+        private String snapshot;
+        private LocalDateTime snapshotAt;
+        private boolean started;
+        private boolean scheduled;
+
+        Subscriber(final String base, final SseEmitter emitter) {
+            this.base = base;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Schedules sending a delta, unless it comes from a table no newer than the snapshot.
+         * While an earlier delta is still waiting, the two are merged and serialized again when
+         * sent; otherwise the group's payload is sent as is.
+         */
+        void offer(final Map<String, Double> changed, final LocalDateTime changedAt, final String payload) {
+            synchronized (this) {
+                if (started && !changedAt.isAfter(snapshotAt)) {
+                    return;
+                }
+                timestamp = changedAt;
+                if (pending != null) {
+                    final Map<String, Double> merged = new HashMap<>(pending);
+                    merged.putAll(changed);
+                    pending = merged;
+                    json = null;
+                } else {
+                    pending = changed;
+                    json = payload;
+                }
+                if (scheduled || !started) {
+                    return;
+                }
+                scheduled = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Schedules sending the snapshot, followed by the deltas held back while it was loading.
+         * Deltas from tables no newer than the snapshot are dropped, and so are rates the
+         * snapshot already holds.
+         */
+        void start(final ExchangeRateResponse response, final String payload) {
+            synchronized (this) {
+                snapshot = payload;
+                snapshotAt = response.getTimestamp();
+                started = true;
+                if (pending != null) {
+                    final Map<String, Double> newer = new HashMap<>(pending);
+                    newer.entrySet().removeIf(rate -> rate.getValue().equals(response.getRates().get(rate.getKey())));
+                    pending = timestamp.isAfter(snapshotAt) && !newer.isEmpty() ? newer : null;
+                    json = null;
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!execute(sendExecutor, this::drain)) {
+                synchronized (this) {
+                    pending = null;
+                    snapshot = null;
+                    scheduled = false;
+                }
+            }
+        }
+
+        /**
+         * Sends the pending snapshot or delta, then any delta offered while sending.
+         */
+        private void drain() {
+            while (true) {
+                final String event;
+                final ExchangeRateResponse merged;
+                final String payload;
+                synchronized (this) {
+                    if (snapshot != null) {
+                        event = SNAPSHOT_EVENT;
+                        merged = null;
+                        payload = snapshot;
+                        snapshot = null;
+                    } else if (pending == null) {
+                        scheduled = false;
+                        return;
+                    } else {
+                        event = DELTA_EVENT;
+                        merged = json == null ? response(base, pending, timestamp) : null;
+                        payload = json;
+                        pending = null;
+                    }
+                }
+                try {
+                    send(emitter, event, payload != null ? payload : serialize(merged));
+                } catch (final RuntimeException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.RateTable;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reloads hot rate tables in the background before they expire, so requests are
+ * served from the cache instead of waiting on the providers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateTableRefresher {
+
+    private final ExchangeRateService exchangeRateService;
+    private final Cache<String, RateTable> rateTableCache;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    @Value("${exchange.refresh.after-ms:2700000}")
+    private long refreshAfterMs;
+
+    @Value("${exchange.refresh.jitter-ms:600000}")
+    private long jitterMs;
+
+    @Value("${exchange.refresh.hot-keys:50}")
+    private int hotKeys;
+
+    @Value("${exchange.refresh.threads:2}")
+    private int threads;
+
+    @Value("${exchange.refresh.queue-capacity:50}")
+    private int queueCapacity;
+
+    /**
+     * Creates the bounded refresh executor.
+     */
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("rate-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the refresh executor.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedules a reload for every hot rate table that is due for refresh.
+     */
+    @Scheduled(fixedDelayString = "${exchange.refresh.interval-ms:30000}")
+    public void refreshHotTables() {
+        final Instant now = Instant.now();
+        for (final RateTable table : hottestTables().values()) {
+            if (isDue(table, now)) {
+                submitRefresh(table.getBase());
+            }
+        }
+    }
+
+    /**
+     * Schedules a reload of the given rate tables regardless of their age, for example
+     * after they were restored from a snapshot. Tables that do not fit the refresh queue
+     * are picked up by the regular pass once due.
+     *
+     * @param bases base currencies to reload
+     */
+    public void refreshAll(final Collection<String> bases) {
+        bases.forEach(this::submitRefresh);
+    }
+
+    private Map<String, RateTable> hottestTables() {
+        return rateTableCache.policy().eviction()
+                .map(eviction -> eviction.hottest(hotKeys))
+                .orElseGet(Collections::emptyMap);
+    }
+
+    /**
+     * Each entry is due at refreshAfter minus a stable per-entry jitter, so tables
+     * written together are not all refreshed, and do not all expire, at the same time.
+     */
+    private boolean isDue(final RateTable table, final Instant now) {
+        final long jitter = jitterMs > 0
+                ? Math.floorMod((long) Objects.hash(table.getBase(), table.getFetchedAt()), jitterMs)
+                : 0;
+        final long age = Duration.between(table.getFetchedAt(), now).toMillis();
+        return age >= refreshAfterMs - jitter;
+    }
+
+    private void submitRefresh(final String base) {
+        if (!refreshing.add(base)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> refresh(base));
+        } catch (final RejectedExecutionException e) {
+            refreshing.remove(base);
+            log.debug("Refresh queue full, deferring refresh for base={}", base);
+        }
+    }
+
+    private void refresh(final String base) {
+        try {
+            exchangeRateService.refreshRateTable(base);
+            log.debug("Refreshed rate table for base={}", base);
+        } catch (final Exception e) {
+            log.warn("Background refresh failed for base={}: {}", base, e.getMessage());
+        } finally {
+            refreshing.remove(base);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.Rates;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists the cached rate tables to a memory-mapped binary file, and restores them on startup
+ * before the instance reports ready, so a restarted instance serves cache hits from its first
+ * request. Restored tables are then reloaded from the providers in the background.
+ *
+ * <p>File layout, big-endian: magic, version, the currency codes the rate indices refer to,
+ * then per table its base, fetch time in epoch milliseconds and its rates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateTableSnapshot implements ApplicationRunner {
+
+    private static final int MAGIC = 0x52545331;
+    private static final int VERSION = 1;
+
+    private final Cache<String, RateTable> rateTableCache;
+    private final RateTableRefresher rateTableRefresher;
+
+    @Value("${exchange.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${exchange.snapshot.path:rate-tables.snapshot}")
+    private String path;
+
+    @Value("${exchange.cache.max-stale-ms:86400000}")
+    private long maxStaleMs;
+
+    /**
+     * Restores the snapshot. Runs before the application is marked ready.
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (enabled) {
+            restore();
+        }
+    }
+
+    /**
+     * Writes the current rate tables to the snapshot file.
+     */
+    @Scheduled(fixedDelayString = "${exchange.snapshot.interval-ms:60000}",
+            initialDelayString = "${exchange.snapshot.interval-ms:60000}")
+    public void save() {
+        if (!enabled || rateTableCache.estimatedSize() == 0) {
+            return;
+        }
+
+        try {
+            write(Paths.get(path), rateTableCache.asMap().values());
+        } catch (final IOException e) {
+            log.warn("Failed to write rate table snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a last snapshot on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        save();
+    }
+
+    /**
+     * Loads the tables of the snapshot still within the stale retention into the cache and schedules their reload.
+     *
+     * @return number of restored tables
+     */
+    public int restore() {
+        final Path file = Paths.get(path);
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+
+        final List<RateTable> tables;
+        try {
+            tables = read(file);
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable rate table snapshot {}: {}", path, e.getMessage());
+            return 0;
+        }
+
+        final Instant oldest = Instant.now().minusMillis(maxStaleMs);
+        final List<String> restored = new ArrayList<>();
+        for (final RateTable table : tables) {
+            if (table.getFetchedAt().isAfter(oldest)) {
+                rateTableCache.put(table.getBase(), table);
+                restored.add(table.getBase());
+            }
+        }
+        log.info("Restored {} rate tables from snapshot {}", restored.size(), path);
+        rateTableRefresher.refreshAll(restored);
+        return restored.size();
+    }
+
+    /**
+     * Writes tables to a temporary file and moves it over the snapshot atomically,
+     * so a crash during the write never leaves a truncated snapshot behind.
+     */
+    static synchronized void write(final Path file, final Collection<RateTable> tables) throws IOException {
+        final int codes = CurrencyRegistry.size();
+        final List<RateTable> snapshot = new ArrayList<>(tables);
+
+        long size = Integer.BYTES * 4L;
+        for (int i = 0; i < codes; i++) {
+            size += Short.BYTES + CurrencyRegistry.code(i).getBytes(StandardCharsets.UTF_8).length;
+        }
+        for (final RateTable table : snapshot) {
+            size += Short.BYTES + table.getBase().getBytes(StandardCharsets.UTF_8).length
+                    + Long.BYTES + Integer.BYTES + (long) Double.BYTES * table.getRates().length;
+        }
+
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(codes);
+            for (int i = 0; i < codes; i++) {
+                putString(buffer, CurrencyRegistry.code(i));
+            }
+            buffer.putInt(snapshot.size());
+            for (final RateTable table : snapshot) {
+                putString(buffer, table.getBase());
+                buffer.putLong(table.getFetchedAt().toEpochMilli());
+                buffer.putInt(table.getRates().length);
+                buffer.asDoubleBuffer().put(table.getRates());
+                buffer.position(buffer.position() + Double.BYTES * table.getRates().length);
+            }
+            buffer.force();
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file and decodes its tables. Rate indices are translated from the codes
+     * stored in the file to this process's {@link CurrencyRegistry}.
+     */
+    static List<RateTable> read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a rate table snapshot");
+            }
+
+            final int[] indices = new int[buffer.getInt()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = CurrencyRegistry.register(getString(buffer));
+            }
+
+            final int count = buffer.getInt();
+            final List<RateTable> tables = new ArrayList<>(count);
+            for (int t = 0; t < count; t++) {
+                final String base = getString(buffer);
+                final Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+                double[] rates = Rates.newArray();
+                final int length = buffer.getInt();
+                for (int i = 0; i < length; i++) {
+                    final double rate = buffer.getDouble();
+                    if (!Double.isNaN(rate) && i < indices.length && indices[i] >= 0) {
+                        rates = Rates.grow(rates, indices[i] + 1);
+                        rates[indices[i]] = rate;
+                    }
+                }
+                tables.add(RateTable.builder().base(base).rates(rates).fetchedAt(fetchedAt).build());
+            }
+            return tables;
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated rate table snapshot", e);
+        }
+    }
+
+    private static void putString(final ByteBuffer buffer, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
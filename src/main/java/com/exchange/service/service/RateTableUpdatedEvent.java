@@ -0,0 +1,15 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.RateTable;
+
+import lombok.Value;
+
+/**
+ * Published after a rate table has been fetched from the providers and cached.
+ */
+@Value
+public class RateTableUpdatedEvent {
+
+    RateTable table;
+
+}
@@ -0,0 +1,141 @@
+package com.exchange.service.service;
+
+import com.exchange.service.model.EncodedResponse;
+import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.RequestTiming;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps exchange rate responses serialized, as JSON, gzip-compressed JSON and CBOR, per canonical query.
+ * An entry is reused while the rate table it was built from is still the one answering the query
+ * and its staleness has not changed, so a cache hit neither builds the response nor runs Jackson.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResponseCache {
+
+    private static final int ETAG_BYTES = 16;
+
+    private final ExchangeRateService exchangeRateService;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private Cache<RateKey, EncodedResponse> entries;
+
+    @Value("${exchange.responses.cache-size:10000}")
+    private int cacheSize;
+
+    /**
+     * Creates the entry cache.
+     */
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Gets the encoded response to a query, see {@link ExchangeRateService#getExchangeRatesAsync(String, String)}.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @param timing records the key parsing, table lookup and encoding phases of the request
+     * @return future completed with the encoded response
+     * @throws IllegalArgumentException if base or symbols are missing
+     */
+    public CompletableFuture<EncodedResponse> getExchangeRatesAsync(final String base, final String symbols,
+            final RequestTiming timing) {
+        final long start = System.nanoTime();
+        final RateKey key = RateKey.of(base, symbols);
+        timing.record(RequestTiming.Phase.KEY, start);
+        return exchangeRateService.getRateTableAsync(key, timing)
+                .thenApply(table -> encoded(key, table, timing));
+    }
+
+    private EncodedResponse encoded(final RateKey key, final RateTable table, final RequestTiming timing) {
+        final boolean stale = exchangeRateService.isStale(table);
+        final EncodedResponse cached = entries.getIfPresent(key);
+        if (cached != null && cached.getTable() == table && cached.isStale() == stale) {
+            return cached;
+        }
+
+        final long start = System.nanoTime();
+        final EncodedResponse encoded = encode(table, exchangeRateService.buildResponse(table, key));
+        entries.put(key, encoded);
+        timing.record(RequestTiming.Phase.ENCODE, start);
+        return encoded;
+    }
+
+    private EncodedResponse encode(final RateTable table, final ExchangeRateResponse response) {
+        final byte[] json = serialize(objectMapper, response);
+        return EncodedResponse.builder()
+                .table(table)
+                .stale(response.isStale())
+                .json(json)
+                .gzip(gzip(json))
+                .cbor(serialize(cborConverter.getObjectMapper(), response))
+                .etag(etag(json))
+                .fetchedAt(response.getFetchedAt())
+                .expiresAt(response.getExpiresAt())
+                .build();
+    }
+
+    private static byte[] serialize(final ObjectMapper mapper, final ExchangeRateResponse response) {
+        try {
+            return mapper.writeValueAsBytes(response);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize exchange rates", e);
+        }
+    }
+
+    /**
+     * Derives a strong validator from the JSON bytes: the first 128 bits of their SHA-256 digest,
+     * in hex. Different representations cannot share a tag, unlike a 32-bit hash code.
+     */
+    private static String etag(final byte[] json) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(json);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        final char[] hex = new char[ETAG_BYTES * 2];
+        for (int i = 0; i < ETAG_BYTES; i++) {
+            hex[i * 2] = Character.forDigit(digest[i] >> 4 & 0xf, 16);
+            hex[i * 2 + 1] = Character.forDigit(digest[i] & 0xf, 16);
+        }
+        return new String(hex);
+    }
+
+    private static byte[] gzip(final byte[] bytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -1,8 +1,5 @@
 package com.exchange.service.util;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 /**
  * Utility class for creating standardized cache keys.
  */
@@ -12,24 +9,17 @@ public final class CacheKeyUtil {
     }
 
     /**
-     * Generates a cache key for exchange rate lookups.
+     * Generates a cache key for a base currency rate table.
      *
      * @param base Base currency code
-     * @param symbols Comma-separated currency symbols
      * @return cache key
      */
-    public static String generateKey(final String base, final String symbols) {
-        if (base == null || symbols == null) {
-            throw new IllegalArgumentException("Base and symbols cannot be null");
+    public static String generateKey(final String base) {
+        if (base == null) {
+            throw new IllegalArgumentException("Base cannot be null");
         }
 
-        final String normalizedSymbols = Arrays.stream(symbols.split(","))
-                .map(String::trim)
-                .map(String::toUpperCase)
-                .sorted()
-                .collect(Collectors.joining(","));
-
-        return base.toUpperCase() + ":" + normalizedSymbols;
+        return base.trim().toUpperCase();
     }
 
 }
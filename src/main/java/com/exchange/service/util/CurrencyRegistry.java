@@ -0,0 +1,139 @@
+package com.exchange.service.util;
+
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility class mapping currency codes to dense array indices.
+ * The ISO 4217 codes known to the JDK are registered up front in code order. Other codes
+ * reported by providers (crypto assets, metals) are appended the first time they are seen.
+ * Indices never change, so rate arrays built at different times stay compatible.
+ * Three-letter codes are also indexed by their letters packed into an int, so they can be
+ * resolved straight from request parameters without creating strings.
+ */
+public final class CurrencyRegistry {
+
+    /**
+     * Upper bound on registered codes, protecting the index space from malformed provider data.
+     */
+    public static final int MAX_CODES = 4096;
+
+    private static final Map<String, Integer> INDICES = new ConcurrentHashMap<>();
+    private static final int[] ALPHA3 = new int[1 << 15];
+    private static volatile String[] codes = new String[0];
+
+    static {
+        Arrays.fill(ALPHA3, -1);
+        Currency.getAvailableCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .sorted()
+                .forEach(CurrencyRegistry::register);
+    }
+
+    private CurrencyRegistry() {
+    }
+
+    /**
+     * Gets the index of a code. Upper- and lower-case codes resolve to the same index.
+     *
+     * @param code currency code
+     * @return index, or -1 if the code is not registered
+     */
+    public static int indexOf(final String code) {
+        final Integer index = INDICES.get(code);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the index of the code spanning a range of characters. Three-letter codes of either
+     * case are resolved without allocating; other codes fall back to {@link #indexOf(String)}.
+     *
+     * @param text characters holding the code
+     * @param start index of the first character of the code
+     * @param end index after the last character of the code
+     * @return index, or -1 if the code is not registered
+     */
+    public static int indexOf(final CharSequence text, final int start, final int end) {
+        if (end - start == 3) {
+            final int packed = pack(text.charAt(start), text.charAt(start + 1), text.charAt(start + 2));
+            if (packed >= 0 && ALPHA3[packed] >= 0) {
+                return ALPHA3[packed];
+            }
+        }
+        return indexOf(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Gets the index of a code, registering it if it is new.
+     *
+     * @param code currency code
+     * @return index, or -1 if the registry is full
+     */
+    public static int register(final String code) {
+        final int index = indexOf(code);
+        return index >= 0 ? index : append(code.toUpperCase(Locale.ROOT));
+    }
+
+    private static synchronized int append(final String code) {
+        final Integer existing = INDICES.get(code);
+        if (existing != null) {
+            INDICES.putIfAbsent(code.toLowerCase(Locale.ROOT), existing);
+            return existing;
+        }
+        if (codes.length >= MAX_CODES) {
+            return -1;
+        }
+
+        final int index = codes.length;
+        final String[] next = Arrays.copyOf(codes, index + 1);
+        next[index] = code;
+        codes = next;
+        INDICES.put(code, index);
+        INDICES.putIfAbsent(code.toLowerCase(Locale.ROOT), index);
+        if (code.length() == 3) {
+            final int packed = pack(code.charAt(0), code.charAt(1), code.charAt(2));
+            if (packed >= 0) {
+                ALPHA3[packed] = index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Packs three ASCII letters of either case into 15 bits, or returns -1 for any other character.
+     */
+    private static int pack(final char first, final char second, final char third) {
+        final int a = letter(first);
+        final int b = letter(second);
+        final int c = letter(third);
+        return a < 0 || b < 0 || c < 0 ? -1 : a << 10 | b << 5 | c;
+    }
+
+    private static int letter(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return c >= 'a' && c <= 'z' ? c - 'a' : -1;
+    }
+
+    /**
+     * Gets the upper-case code registered at an index.
+     *
+     * @param index registered index
+     * @return currency code
+     */
+    public static String code(final int index) {
+        return codes[index];
+    }
+
+    /**
+     * Gets the number of registered codes, which is the length of a full rate array.
+     */
+    public static int size() {
+        return codes.length;
+    }
+
+}
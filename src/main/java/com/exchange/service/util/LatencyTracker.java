@@ -0,0 +1,58 @@
+package com.exchange.service.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recent latency samples in a fixed ring buffer and computes percentiles over them.
+ */
+public final class LatencyTracker {
+
+    private final long[] samples;
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Creates a tracker.
+     *
+     * @param capacity number of recent samples kept
+     */
+    public LatencyTracker(final int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Records a latency sample.
+     *
+     * @param millis latency in ms
+     */
+    public void record(final long millis) {
+        final long index = count.getAndIncrement();
+        samples[(int) (index % samples.length)] = millis;
+    }
+
+    /**
+     * Number of samples currently held.
+     */
+    public int sampleCount() {
+        return (int) Math.min(count.get(), samples.length);
+    }
+
+    /**
+     * Computes a percentile over the held samples.
+     *
+     * @param quantile quantile between 0 and 1, e.g. 0.95
+     * @return latency in ms at the quantile, or 0 if no samples were recorded
+     */
+    public long percentile(final double quantile) {
+        final int size = sampleCount();
+        if (size == 0) {
+            return 0;
+        }
+
+        final long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(quantile * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+
+}
@@ -0,0 +1,277 @@
+package com.exchange.service.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Canonical form of an exchange rate query: the base currency and the requested symbols as a
+ * bitset over {@link CurrencyRegistry} indices. Parsing is a single pass over the raw parameters
+ * without regex, streams or intermediate strings, so case, whitespace, order and duplicates of the
+ * symbols do not matter and equivalent queries yield equal keys. The hash is computed once.
+ * Symbols that are not registered yet are kept as upper-case strings, because providers register
+ * codes such as crypto assets while parsing the first table that contains them; {@link #resolve()}
+ * moves them into the bitset once they are known.
+ */
+public final class RateKey {
+
+    private static final String[] NONE = new String[0];
+
+    private final String base;
+    private final long[] symbols;
+    private final String[] unresolved;
+    private final int size;
+    private final int hash;
+
+    private RateKey(final String base, final long[] symbols, final String[] unresolved) {
+        this.base = base;
+        this.symbols = symbols;
+        this.unresolved = unresolved;
+        int count = 0;
+        for (final long word : symbols) {
+            count += Long.bitCount(word);
+        }
+        this.size = count;
+        this.hash = 31 * (31 * base.hashCode() + hashSymbols(symbols)) + Arrays.hashCode(unresolved);
+    }
+
+    /**
+     * Parses the base and comma-separated symbols of a query.
+     *
+     * @param base Base currency code
+     * @param symbols Comma-separated target currencies
+     * @return canonical key
+     * @throws IllegalArgumentException if base or symbols are null
+     */
+    public static RateKey of(final String base, final String symbols) {
+        if (base == null) {
+            throw new IllegalArgumentException("Base cannot be null");
+        }
+        if (symbols == null) {
+            throw new IllegalArgumentException("Symbols cannot be null");
+        }
+
+        final long[] bits = new long[words(CurrencyRegistry.size())];
+        String[] unresolved = NONE;
+        int unresolvedCount = 0;
+        final int length = symbols.length();
+        int start = 0;
+        while (start <= length) {
+            int end = symbols.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int from = start;
+            int to = end;
+            while (from < to && symbols.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && symbols.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (from < to) {
+                final int index = CurrencyRegistry.indexOf(symbols, from, to);
+                if (index >= 0 && index / Long.SIZE < bits.length) {
+                    bits[index / Long.SIZE] |= 1L << index;
+                } else {
+                    if (unresolvedCount == unresolved.length) {
+                        unresolved = Arrays.copyOf(unresolved, Math.max(4, unresolvedCount * 2));
+                    }
+                    unresolved[unresolvedCount++] = symbols.substring(from, to).toUpperCase(Locale.ROOT);
+                }
+            }
+            start = end + 1;
+        }
+        return new RateKey(canonicalBase(base), bits, distinct(unresolved, unresolvedCount));
+    }
+
+    /**
+     * Resolves the symbols that were not registered when the key was parsed and have been since.
+     *
+     * @return this key if no symbol is unresolved or none was registered, otherwise a key with
+     *         the registered symbols moved into the bitset
+     */
+    public RateKey resolve() {
+        if (unresolved.length == 0) {
+            return this;
+        }
+
+        long[] bits = symbols;
+        final String[] remaining = new String[unresolved.length];
+        int remainingCount = 0;
+        for (final String code : unresolved) {
+            final int index = CurrencyRegistry.indexOf(code);
+            if (index < 0) {
+                remaining[remainingCount++] = code;
+                continue;
+            }
+            if (bits == symbols) {
+                bits = Arrays.copyOf(symbols, Math.max(symbols.length, words(CurrencyRegistry.size())));
+            }
+            bits[index / Long.SIZE] |= 1L << index;
+        }
+        return bits == symbols ? this : new RateKey(base, bits, distinct(remaining, remainingCount));
+    }
+
+    /**
+     * Gets the upper-case base currency code.
+     */
+    public String getBase() {
+        return base;
+    }
+
+    /**
+     * Gets the number of registered symbols, the ones visited by {@link #nextSymbol(int)}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the upper-case symbols that were not registered when the key was parsed, in code order.
+     */
+    public String[] getUnresolved() {
+        return unresolved.clone();
+    }
+
+    /**
+     * Gets the first symbol index at or after a position, for iterating over the symbols:
+     * {@code for (int i = key.nextSymbol(0); i >= 0; i = key.nextSymbol(i + 1))}.
+     *
+     * @param from first index to consider
+     * @return registry index of the next symbol, or -1 if there is none
+     */
+    public int nextSymbol(final int from) {
+        int word = from / Long.SIZE;
+        if (word >= symbols.length) {
+            return -1;
+        }
+
+        long bits = symbols[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == symbols.length) {
+                return -1;
+            }
+            bits = symbols[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RateKey)) {
+            return false;
+        }
+        final RateKey key = (RateKey) other;
+        return hash == key.hash && base.equals(key.base) && sameSymbols(key.symbols)
+                && Arrays.equals(unresolved, key.unresolved);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder(base).append(':');
+        for (int i = nextSymbol(0); i >= 0; i = nextSymbol(i + 1)) {
+            if (text.charAt(text.length() - 1) != ':') {
+                text.append(',');
+            }
+            text.append(CurrencyRegistry.code(i));
+        }
+        for (final String code : unresolved) {
+            if (text.charAt(text.length() - 1) != ':') {
+                text.append(',');
+            }
+            text.append(code);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Compares symbol bitsets, ignoring trailing empty words of keys built at different registry sizes.
+     */
+    private boolean sameSymbols(final long[] other) {
+        final int common = Math.min(symbols.length, other.length);
+        for (int i = 0; i < common; i++) {
+            if (symbols[i] != other[i]) {
+                return false;
+            }
+        }
+        for (int i = common; i < symbols.length; i++) {
+            if (symbols[i] != 0) {
+                return false;
+            }
+        }
+        for (int i = common; i < other.length; i++) {
+            if (other[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the symbol words up to the last non-empty one, consistently with {@link #sameSymbols(long[])}.
+     */
+    private static int hashSymbols(final long[] symbols) {
+        int last = symbols.length;
+        while (last > 0 && symbols[last - 1] == 0) {
+            last--;
+        }
+        int hash = 1;
+        for (int i = 0; i < last; i++) {
+            hash = 31 * hash + Long.hashCode(symbols[i]);
+        }
+        return hash;
+    }
+
+    private static int words(final int codes) {
+        return (codes + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Sorts the first codes of an array and drops duplicates.
+     */
+    private static String[] distinct(final String[] codes, final int count) {
+        if (count == 0) {
+            return NONE;
+        }
+        Arrays.sort(codes, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (!codes[i].equals(codes[distinct - 1])) {
+                codes[distinct++] = codes[i];
+            }
+        }
+        return Arrays.copyOf(codes, distinct);
+    }
+
+    /**
+     * Resolves the trimmed code between two positions.
+     */
+    private static int indexOf(final String text, final int start, final int end) {
+        int from = start;
+        int to = end;
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return from < to ? CurrencyRegistry.indexOf(text, from, to) : -1;
+    }
+
+    /**
+     * Uses the registry's string for known bases, so no new string is created for them.
+     */
+    private static String canonicalBase(final String base) {
+        final int index = indexOf(base, 0, base.length());
+        return index >= 0 ? CurrencyRegistry.code(index) : CacheKeyUtil.generateKey(base);
+    }
+
+}
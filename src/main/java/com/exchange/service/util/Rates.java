@@ -0,0 +1,109 @@
+package com.exchange.service.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility class for primitive rate arrays indexed by {@link CurrencyRegistry}.
+ * A missing rate is stored as {@code NaN}; arrays may be shorter than the registry
+ * when codes were registered after they were built.
+ */
+public final class Rates {
+
+    /**
+     * Array holding no rates.
+     */
+    public static final double[] NONE = new double[0];
+
+    private Rates() {
+    }
+
+    /**
+     * Creates an array with room for every registered code and no rates.
+     */
+    public static double[] newArray() {
+        return newArray(CurrencyRegistry.size());
+    }
+
+    /**
+     * Creates an array of the given length with no rates.
+     */
+    public static double[] newArray(final int length) {
+        final double[] rates = new double[length];
+        Arrays.fill(rates, Double.NaN);
+        return rates;
+    }
+
+    /**
+     * Grows an array to the given length, keeping its rates.
+     */
+    public static double[] grow(final double[] rates, final int length) {
+        if (rates.length >= length) {
+            return rates;
+        }
+        final double[] grown = Arrays.copyOf(rates, length);
+        Arrays.fill(grown, rates.length, length, Double.NaN);
+        return grown;
+    }
+
+    /**
+     * Gets the rate of a code.
+     *
+     * @return the rate, or {@code NaN} if the array has none for the code
+     */
+    public static double get(final double[] rates, final String code) {
+        final int index = CurrencyRegistry.indexOf(code);
+        return index >= 0 && index < rates.length ? rates[index] : Double.NaN;
+    }
+
+    /**
+     * Gets the rate at a registry index.
+     *
+     * @return the rate, or {@code NaN} if the array has none for the index
+     */
+    public static double get(final double[] rates, final int index) {
+        return index >= 0 && index < rates.length ? rates[index] : Double.NaN;
+    }
+
+    /**
+     * Checks whether the array holds no rate at all.
+     */
+    public static boolean isEmpty(final double[] rates) {
+        for (final double rate : rates) {
+            if (!Double.isNaN(rate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts rates keyed by currency code to an array, registering new codes.
+     */
+    public static double[] of(final Map<String, Double> rates) {
+        double[] array = newArray();
+        for (final Map.Entry<String, Double> rate : rates.entrySet()) {
+            final int index = CurrencyRegistry.register(rate.getKey());
+            if (index >= 0) {
+                array = grow(array, index + 1);
+                array[index] = rate.getValue();
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Converts an array to rates keyed by upper-case currency code.
+     */
+    public static Map<String, Double> toMap(final double[] rates) {
+        final Map<String, Double> map = new HashMap<>();
+        for (int i = 0; i < rates.length; i++) {
+            if (!Double.isNaN(rates[i])) {
+                map.put(CurrencyRegistry.code(i), rates[i]);
+            }
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.exchange.service.util;
+
+/**
+ * Durations of the phases of one exchange rate request, rendered as a {@code Server-Timing} header.
+ * A request allocates one instance and one array; recording a phase is a clock read and an addition.
+ * Phases run one after the other, possibly on different threads handing over through futures,
+ * so the instance needs no synchronization. {@link #NONE} ignores everything, for background work.
+ */
+public final class RequestTiming {
+
+    /**
+     * Instance recording nothing.
+     */
+    public static final RequestTiming NONE = new RequestTiming(null);
+
+    /**
+     * Request phases, in the order they run.
+     */
+    public enum Phase {
+
+        KEY("key", "Rate key parsing"),
+        CACHE("cache", "Rate table cache lookup"),
+        UPSTREAM("upstream", "Provider calls, from queueing to parsing"),
+        AVERAGE("average", "Rate averaging"),
+        FETCH("fetch", "Waiting for the rate table"),
+        ENCODE("encode", "Response serialization");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(final String metricName, final String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        /**
+         * Gets the short name used in the header and as the metric tag.
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+
+        /**
+         * Gets a human-readable description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] nanos;
+    private final long started;
+    private int recorded;
+    private long total;
+
+    private RequestTiming(final long[] nanos) {
+        this.nanos = nanos;
+        this.started = System.nanoTime();
+    }
+
+    /**
+     * Starts timing a request.
+     */
+    public static RequestTiming start() {
+        return new RequestTiming(new long[PHASES.length]);
+    }
+
+    /**
+     * Adds the time elapsed since a {@link System#nanoTime()} reading to a phase.
+     *
+     * @param phase phase that ran
+     * @param since clock reading taken when the phase began
+     */
+    public void record(final Phase phase, final long since) {
+        if (nanos != null) {
+            nanos[phase.ordinal()] += System.nanoTime() - since;
+            recorded |= 1 << phase.ordinal();
+        }
+    }
+
+    /**
+     * Stops the request clock.
+     */
+    public void finish() {
+        if (nanos != null) {
+            total = System.nanoTime() - started;
+        }
+    }
+
+    /**
+     * Checks whether a phase ran.
+     */
+    public boolean ran(final Phase phase) {
+        return (recorded & 1 << phase.ordinal()) != 0;
+    }
+
+    /**
+     * Gets the time spent in a phase.
+     *
+     * @return duration in nanoseconds, 0 if the phase did not run
+     */
+    public long get(final Phase phase) {
+        return nanos != null ? nanos[phase.ordinal()] : 0;
+    }
+
+    /**
+     * Gets the time from the start to {@link #finish()}.
+     *
+     * @return duration in nanoseconds
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Renders the phases that ran and the total, in milliseconds,
+     * e.g. {@code key;dur=0.004, cache;dur=0.001, total;dur=0.052}.
+     */
+    public String toHeader() {
+        final StringBuilder header = new StringBuilder(128);
+        for (final Phase phase : PHASES) {
+            if (ran(phase)) {
+                appendMetric(header, phase.metricName, nanos[phase.ordinal()]);
+            }
+        }
+        appendMetric(header, "total", total);
+        return header.toString();
+    }
+
+    /**
+     * Appends a metric with microsecond precision, without going through floating point formatting.
+     */
+    private static void appendMetric(final StringBuilder header, final String name, final long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        final long micros = Math.max(0, nanos / 1000);
+        final long fraction = micros % 1000;
+        header.append(name).append(";dur=").append(micros / 1000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.exchange.service.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram over rolling time windows, kept as a ring of HdrHistogram buckets of a fixed duration.
+ * Recording is lock-free: a sample goes into the bucket of the current time slot, which the first writer
+ * of a new slot claims with a compare-and-set and clears. A few samples racing that turnover can be lost.
+ * Reading a window merges the buckets it covers; the merge is cached for a second, so every percentile
+ * of a window read by one scrape or one metrics request costs a single merge.
+ * Values are tracked in microseconds with two significant digits, up to one minute.
+ */
+public final class RollingHistogram {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final long SNAPSHOT_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final long bucketNanos;
+    private final Bucket[] buckets;
+    private final LongSupplier clock;
+    private final Map<Duration, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a histogram.
+     *
+     * @param bucket duration of one bucket, the granularity of the windows
+     * @param longestWindow longest window that can be read
+     */
+    public RollingHistogram(final Duration bucket, final Duration longestWindow) {
+        this(bucket, longestWindow, System::nanoTime);
+    }
+
+    RollingHistogram(final Duration bucket, final Duration longestWindow, final LongSupplier clock) {
+        this.bucketNanos = bucket.toNanos();
+        this.buckets = new Bucket[slots(longestWindow)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Records a latency sample; values above one minute are recorded as one minute.
+     *
+     * @param nanos latency in ns
+     */
+    public void record(final long nanos) {
+        final long slot = Math.floorDiv(clock.getAsLong(), bucketNanos);
+        final Bucket bucket = buckets[(int) Math.floorMod(slot, buckets.length)];
+        long claimed = bucket.slot.get();
+        while (claimed != slot) {
+            if (claimed != UNUSED && claimed > slot) {
+                return;
+            }
+            if (bucket.claim(claimed, slot)) {
+                break;
+            }
+            claimed = bucket.slot.get();
+        }
+        bucket.histogram.recordValue(Math.max(0, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_MICROS)));
+    }
+
+    /**
+     * Gets the samples of the last window, including the current partial bucket.
+     *
+     * @param window window length, rounded up to whole buckets and capped at the longest window
+     * @return histogram of the window in microseconds; shared, must not be modified
+     */
+    public Histogram snapshot(final Duration window) {
+        final long now = clock.getAsLong();
+        final Snapshot cached = snapshots.get(window);
+        if (cached != null && now - cached.takenAt < SNAPSHOT_TTL_NANOS) {
+            return cached.histogram;
+        }
+
+        final long current = Math.floorDiv(now, bucketNanos);
+        final long oldest = current - Math.min(slots(window), buckets.length) + 1;
+        final Histogram merged = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        for (final Bucket bucket : buckets) {
+            final long slot = bucket.slot.get();
+            if (slot != UNUSED && slot >= oldest && slot <= current) {
+                merged.add(bucket.histogram);
+            }
+        }
+        snapshots.put(window, new Snapshot(now, merged));
+        return merged;
+    }
+
+    /**
+     * Gets a percentile of the last window.
+     *
+     * @param window window length
+     * @param quantile quantile between 0 and 1, e.g. 0.99
+     * @return latency in ms at the quantile, or 0 if the window has no samples
+     */
+    public double percentile(final Duration window, final double quantile) {
+        final Histogram histogram = snapshot(window);
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(quantile * 100) / 1000.0;
+    }
+
+    private int slots(final Duration window) {
+        return (int) Math.max(1, (window.toNanos() + bucketNanos - 1) / bucketNanos);
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong slot = new AtomicLong(UNUSED);
+        private final AtomicHistogram histogram = new AtomicHistogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+
+        /**
+         * Takes the bucket over for a new slot, clearing the samples of the slot it held.
+         */
+        boolean claim(final long previous, final long next) {
+            if (!slot.compareAndSet(previous, next)) {
+                return false;
+            }
+            histogram.reset();
+            return true;
+        }
+
+    }
+
+    private static final class Snapshot {
+
+        private final long takenAt;
+        private final Histogram histogram;
+
+        Snapshot(final long takenAt, final Histogram histogram) {
+            this.takenAt = takenAt;
+            this.histogram = histogram;
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.exchange.service.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key, so only the first caller runs the loader
+ * and every other caller waits on its shared result.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final IntConsumer onFlightComplete;
+
+    /**
+     * Creates a single-flight group.
+     *
+     * @param onFlightComplete receives the number of callers served by each completed load
+     */
+    public SingleFlight(final IntConsumer onFlightComplete) {
+        this.onFlightComplete = onFlightComplete;
+    }
+
+    /**
+     * Runs the loader for the key, or waits for the load already in flight for it.
+     *
+     * @param key the key to load
+     * @param loader loads the value, only invoked by the first caller
+     * @return the loaded value
+     */
+    public V execute(final K key, final Supplier<V> loader) {
+        return await(executeAsync(key, () -> CompletableFuture.completedFuture(loader.get())));
+    }
+
+    /**
+     * Starts the asynchronous loader for the key, or joins the load already in flight for it.
+     *
+     * @param key the key to load
+     * @param loader starts loading the value, only invoked by the first caller
+     * @return future completed with the loaded value
+     */
+    public CompletableFuture<V> executeAsync(final K key, final Supplier<CompletableFuture<V>> loader) {
+        final Flight<V> created = new Flight<>();
+        final Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+            existing.callers.incrementAndGet();
+            return existing;
+        });
+
+        if (flight != created) {
+            return flight.result.copy();
+        }
+
+        CompletableFuture<V> load;
+        try {
+            load = loader.get();
+        } catch (final RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+
+        load.whenComplete((value, error) -> {
+            inFlight.remove(key, created);
+            onFlightComplete.accept(created.callers.get());
+            if (error != null) {
+                created.result.completeExceptionally(error);
+            } else {
+                created.result.complete(value);
+            }
+        });
+        return created.result.copy();
+    }
+
+    /**
+     * Number of loads currently in flight.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <T> T await(final CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger callers = new AtomicInteger(1);
+
+    }
+
+}
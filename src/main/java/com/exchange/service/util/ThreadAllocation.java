@@ -0,0 +1,33 @@
+package com.exchange.service.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Utility class reading the heap allocation counter of the current thread.
+ */
+public final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return allocated bytes, or -1 if the JVM does not track thread allocation
+     */
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+    }
+
+}
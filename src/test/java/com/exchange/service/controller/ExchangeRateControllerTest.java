@@ -1,24 +1,56 @@
 package com.exchange.service.controller;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.exchange.service.model.BatchExchangeRateResponse;
+import com.exchange.service.model.BatchExchangeRateResult;
+import com.exchange.service.model.EncodedResponse;
+import com.exchange.service.model.ExchangeRateQuery;
 import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.HistoricalRatesResponse;
 import com.exchange.service.service.ExchangeRateService;
 import com.exchange.service.service.MetricsService;
+import com.exchange.service.service.ResponseCache;
+import com.exchange.service.util.RequestTiming;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.Test;
 
@@ -29,13 +61,28 @@ class ExchangeRateControllerTest {
             .base("USD")
             .rates(Map.of("EUR", 0.85))
             .timestamp(LocalDateTime.now())
+            .fetchedAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(600))
+            .build();
+
+    private final EncodedResponse encodedResponse = EncodedResponse.builder()
+            .json("{\"base\":\"USD\",\"rates\":{\"EUR\":0.85}}".getBytes(StandardCharsets.UTF_8))
+            .gzip(new byte[] {0x1f, (byte) 0x8b, 0})
+            .cbor(new byte[] {(byte) 0xa2, 0x64})
+            .etag("5d2c-18f")
+            .fetchedAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
     @Autowired
     private ExchangeRateController controller;
+    @Autowired
+    private MockMvc mockMvc;
     @MockBean
     private ExchangeRateService exchangeRateService;
     @MockBean
+    private ResponseCache responseCache;
+    @MockBean
     private CacheManager cacheManager;
     @MockBean
     private MetricsService metricsService;
@@ -46,18 +93,152 @@ class ExchangeRateControllerTest {
         final String symbols = "EUR,GBP";
         final String cacheKey = "USD-EUR,GBP";
 
-        mockResponse.setBase(base);
-
         final Cache mockCache = mock(Cache.class);
         when(cacheManager.getCache("exchangeRates")).thenReturn(mockCache);
         when(mockCache.get(cacheKey)).thenReturn(null);
-        when(exchangeRateService.getExchangeRates(base, symbols)).thenReturn(mockResponse);
+        when(responseCache.getExchangeRatesAsync(eq(base), eq(symbols), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
 
-        final ResponseEntity<ExchangeRateResponse> response = controller.getExchangeRates(base, symbols);
+        final ResponseEntity<byte[]> response = controller.getExchangeRates(base, symbols, null, null).join();
 
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
-        assertSame(mockResponse, response.getBody());
+        assertSame(encodedResponse.getJson(), response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeaders().getFirst("Server-Timing"));
+        assertTrue(response.getHeaders().getCacheControl().contains("public"));
+        verify(metricsService).recordPhases(any(RequestTiming.class));
+    }
+
+    @Test
+    void test_getExchangeRates_returns_server_timing_on_private_responses_when_enabled() {
+        when(responseCache.getExchangeRatesAsync(eq("USD"), eq("EUR"), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
+        ReflectionTestUtils.setField(controller, "serverTiming", true);
+
+        final ResponseEntity<byte[]> response;
+        try {
+            response = controller.getExchangeRates("USD", "EUR", null, null).join();
+        } finally {
+            ReflectionTestUtils.setField(controller, "serverTiming", false);
+        }
+
+        assertTrue(response.getHeaders().getFirst("Server-Timing").contains("total;dur="));
+        assertTrue(response.getHeaders().getCacheControl().contains("private"));
+        assertFalse(response.getHeaders().getCacheControl().contains("public"));
+    }
+
+    @Test
+    void test_getExchangeRates_writes_cached_gzip_when_accepted() throws Exception {
+        when(responseCache.getExchangeRatesAsync(eq("USD"), eq("EUR"), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
+
+        final MvcResult result = mockMvc.perform(get("/api/exchange-rates").param("base", "USD").param("symbols", "EUR")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(content().bytes(encodedResponse.getGzip()));
+    }
+
+    @Test
+    void test_getExchangeRates_writes_identity_when_gzip_is_refused() {
+        when(responseCache.getExchangeRatesAsync(eq("USD"), eq("EUR"), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
+
+        for (final String acceptEncoding : List.of("gzip;q=0, deflate", "x-gzip; q=0.0", "*, gzip;q=0")) {
+            final ResponseEntity<byte[]> response = controller.getExchangeRates("USD", "EUR", null, acceptEncoding)
+                    .join();
+
+            assertSame(encodedResponse.getJson(), response.getBody(), acceptEncoding);
+            assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+        }
+        final ResponseEntity<byte[]> wildcard = controller.getExchangeRates("USD", "EUR", null, "br;q=1, *;q=0.5")
+                .join();
+        assertEquals("gzip", wildcard.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void test_getExchangeRates_writes_cached_cbor_when_preferred() throws Exception {
+        when(responseCache.getExchangeRatesAsync(eq("USD"), eq("EUR"), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
+
+        final MvcResult result = mockMvc.perform(get("/api/exchange-rates").param("base", "USD").param("symbols", "EUR")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(encodedResponse.getCbor()));
+    }
+
+    @Test
+    void test_getExchangeRates_answers_matching_etag_with_not_modified() throws Exception {
+        when(responseCache.getExchangeRatesAsync(eq("USD"), eq("EUR"), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(encodedResponse));
+
+        final MvcResult first = mockMvc.perform(get("/api/exchange-rates").param("base", "USD").param("symbols", "EUR"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final String etag = mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=")))
+                .andExpect(jsonPath("$.rates.EUR").value(0.85))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        final MvcResult second = mockMvc.perform(get("/api/exchange-rates").param("base", "USD").param("symbols", "EUR")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void test_getExchangeRatesBatch() {
+        final List<ExchangeRateQuery> queries = List.of(new ExchangeRateQuery("USD", "EUR"));
+        final BatchExchangeRateResponse batch = BatchExchangeRateResponse.builder()
+                .results(List.of(BatchExchangeRateResult.builder().result(mockResponse).build()))
+                .build();
+        when(exchangeRateService.getExchangeRatesBatchAsync(queries))
+                .thenReturn(CompletableFuture.completedFuture(batch));
+
+        final ResponseEntity<BatchExchangeRateResponse> response = controller.getExchangeRatesBatch(queries).join();
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertSame(batch, response.getBody());
+    }
+
+    @Test
+    void test_getHistoricalRates_for_range() throws Exception {
+        final LocalDate from = LocalDate.of(2024, 1, 2);
+        final LocalDate to = LocalDate.of(2024, 1, 3);
+        final HistoricalRatesResponse history = HistoricalRatesResponse.builder()
+                .base("USD")
+                .startDate(from)
+                .endDate(to)
+                .rates(new TreeMap<>(Map.of(from, Map.of("EUR", 0.91), to, Map.of("EUR", 0.92))))
+                .build();
+        when(exchangeRateService.getHistoricalRatesAsync("USD", "EUR", from, to))
+                .thenReturn(CompletableFuture.completedFuture(history));
+
+        final MvcResult result = mockMvc.perform(get("/api/exchange-rates/history")
+                        .param("base", "USD").param("symbols", "EUR")
+                        .param("from", "2024-01-02").param("to", "2024-01-03"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.startDate").value("2024-01-02"))
+                .andExpect(jsonPath("$.rates['2024-01-03'].EUR").value(0.92));
     }
 
-}
\ No newline at end of file
+}
@@ -2,10 +2,13 @@ package com.exchange.service.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.exchange.service.model.ApiMetrics;
 import com.exchange.service.model.MetricsResponse;
+import com.exchange.service.provider.ProviderRegistry;
+import com.exchange.service.provider.RateProvider;
 import com.exchange.service.service.MetricsService;
 
 import org.mockito.InjectMocks;
@@ -14,6 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
@@ -22,12 +27,17 @@ class MetricsControllerTest {
 
     @Mock
     private MetricsService metricsService;
+    @Mock
+    private ProviderRegistry providerRegistry;
     @InjectMocks
     private MetricsController metricsController;
 
     @Test
     void test_getMetrics() {
         when(metricsService.getTotalRequests()).thenReturn(100L);
+        when(providerRegistry.getProviders()).thenReturn(List.of(
+                provider("free_exchange", "Free currency rates API"),
+                provider("frankfurter", "Frankfurter API")));
 
         final String FREE = "free_exchange";
         when(metricsService.getRequests(FREE)).thenReturn(50L);
@@ -55,11 +65,18 @@ class MetricsControllerTest {
         assertEquals(2, body.getApiMetrics().size());
 
         final ApiMetrics freeMetrics = body.getApiMetrics().get(0);
-        assertEquals("freeExchangeApi", freeMetrics.getDatasource());
+        assertEquals("Free currency rates API", freeMetrics.getDatasource());
         assertEquals(50L, freeMetrics.getTotalRequests());
         assertEquals(45L, freeMetrics.getTotalResponses());
         assertEquals(5L, freeMetrics.getTotalErrors());
         assertEquals(150.5, freeMetrics.getAverageResponseTime());
     }
 
+    private RateProvider provider(final String name, final String displayName) {
+        final RateProvider provider = mock(RateProvider.class);
+        when(provider.getName()).thenReturn(name);
+        when(provider.getDisplayName()).thenReturn(displayName);
+        return provider;
+    }
+
 }
@@ -0,0 +1,128 @@
+package com.exchange.service.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = 1_000;
+
+    private AtomicLong clock;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        circuitBreaker = new CircuitBreaker(4, 4, 0.5, OPEN_NANOS, 1, clock::get);
+    }
+
+    @Test
+    void test_stays_closed_below_minimum_calls() {
+        fail(3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNotEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void test_opens_when_failure_rate_reaches_threshold() {
+        succeed(2);
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void test_evaluates_only_the_sliding_window() {
+        fail(1);
+        succeed(4);
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void test_closes_after_successful_half_open_probe() {
+        fail(4);
+        clock.addAndGet(OPEN_NANOS);
+
+        final long probe = circuitBreaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, probe);
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess(probe);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void test_reopens_after_failed_half_open_probe() {
+        fail(4);
+        clock.addAndGet(OPEN_NANOS);
+
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void test_ignores_late_results_of_calls_acquired_before_opening() {
+        final long lateSuccess = circuitBreaker.tryAcquire();
+        final long lateFailure = circuitBreaker.tryAcquire();
+        final long lateRelease = circuitBreaker.tryAcquire();
+        fail(4);
+        clock.addAndGet(OPEN_NANOS);
+        final long probe = circuitBreaker.tryAcquire();
+
+        circuitBreaker.onSuccess(lateSuccess);
+        circuitBreaker.release(lateRelease);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(lateFailure);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void test_ignores_late_probe_results_after_closing() {
+        circuitBreaker = new CircuitBreaker(4, 4, 0.5, OPEN_NANOS, 2, clock::get);
+        fail(4);
+        clock.addAndGet(OPEN_NANOS);
+        final long first = circuitBreaker.tryAcquire();
+        final long second = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess(first);
+        circuitBreaker.onSuccess(second);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        succeed(2);
+        circuitBreaker.onFailure(second);
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private void succeed(final int calls) {
+        for (int i = 0; i < calls; i++) {
+            final long permit = circuitBreaker.tryAcquire();
+            assertNotEquals(CircuitBreaker.REJECTED, permit);
+            circuitBreaker.onSuccess(permit);
+        }
+    }
+
+    private void fail(final int calls) {
+        for (int i = 0; i < calls; i++) {
+            final long permit = circuitBreaker.tryAcquire();
+            assertNotEquals(CircuitBreaker.REJECTED, permit);
+            circuitBreaker.onFailure(permit);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.exchange.service.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.exchange.service.util.Rates;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.junit.jupiter.api.Test;
+
+class JsonRatesTest {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Test
+    void test_reads_only_the_rates_field() throws IOException {
+        final String json = "{\"date\":\"2024-01-01\",\"meta\":{\"usd\":{\"eur\":9.9}},"
+                + "\"usd\":{\"eur\":0.9,\"jpy\":150,\"note\":\"n/a\",\"nested\":[1,2]},\"tail\":[{\"a\":1}]}";
+
+        final double[] rates = read(json, "usd");
+
+        assertEquals(Map.of("EUR", 0.9, "JPY", 150.0), Rates.toMap(rates));
+    }
+
+    @Test
+    void test_returns_no_rates_for_missing_field() throws IOException {
+        assertTrue(Rates.isEmpty(read("{\"amount\":1.0,\"rates\":[]}", "rates")));
+    }
+
+    @Test
+    void test_returns_no_rates_for_non_object_document() throws IOException {
+        assertTrue(Rates.isEmpty(read("[]", "rates")));
+    }
+
+    @Test
+    void test_reads_series_by_day() throws IOException {
+        final String json = "{\"amount\":1.0,\"base\":\"EUR\",\"rates\":{"
+                + "\"2024-01-02\":{\"USD\":1.09,\"GBP\":0.86},\"2024-01-03\":{\"USD\":1.1},"
+                + "\"bogus\":{\"USD\":9.9}}}";
+
+        final SortedMap<LocalDate, double[]> series;
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            series = JsonRates.readSeries(parser, "rates");
+        }
+
+        assertEquals(2, series.size());
+        assertEquals(Map.of("USD", 1.09, "GBP", 0.86), Rates.toMap(series.get(LocalDate.of(2024, 1, 2))));
+        assertEquals(Map.of("USD", 1.1), Rates.toMap(series.get(LocalDate.of(2024, 1, 3))));
+    }
+
+    private static double[] read(final String json, final String field) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return JsonRates.read(parser, field);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.exchange.service.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.exchange.service.service.MetricsService;
+import com.exchange.service.util.Rates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProviderClientTest {
+
+    private HttpServer server;
+    private ProviderClient providerClient;
+    private MetricsService metricsService;
+    private ProviderLatencies providerLatencies;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rates", exchange -> respond(exchange, 200, "{\"rates\":{\"EUR\":0.9}}"));
+        server.createContext("/missing", exchange -> respond(exchange, 404, "{}"));
+        server.createContext("/validated", exchange -> {
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            respond(exchange, 200, "{\"rates\":{\"EUR\":0.9}}");
+        });
+        server.start();
+
+        metricsService = mock(MetricsService.class);
+        providerLatencies = new ProviderLatencies();
+        final ProviderExecutors providerExecutors = new ProviderExecutors(new MockEnvironment(), metricsService);
+        providerClient = new ProviderClient(mock(RestTemplate.class), HttpClient.newHttpClient(),
+                new ObjectMapper(), providerExecutors, new ProviderHedger(metricsService, providerLatencies),
+                metricsService);
+        ReflectionTestUtils.setField(providerClient, "nonBlocking", true);
+        ReflectionTestUtils.setField(providerClient, "socketTimeout", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void test_non_blocking_mode_streams_rates_from_json_body() {
+        final double[] rates = fetchRates("/rates").join();
+
+        assertEquals(0.9, Rates.get(rates, "EUR"));
+    }
+
+    @Test
+    void test_non_blocking_mode_returns_empty_result_for_error_status() {
+        final double[] rates = fetchRates("/missing").join();
+
+        assertSame(Rates.NONE, rates);
+    }
+
+    @Test
+    void test_reuses_result_when_provider_answers_not_modified() {
+        final double[] first = fetchRates("/validated").join();
+        final double[] second = fetchRates("/validated").join();
+
+        assertEquals(0.9, Rates.get(second, "EUR"));
+        assertSame(first, second);
+        verify(metricsService, times(1)).incrementNotModified("frankfurter");
+    }
+
+    @Test
+    void test_unhedged_fetch_is_not_recorded_as_provider_latency() {
+        fetchRates("/rates").join();
+        final double[] rates = providerClient.getJson("frankfurter", url("/rates"),
+                parser -> JsonRates.read(parser, "rates"), Rates.NONE).join();
+
+        assertEquals(0.9, Rates.get(rates, "EUR"));
+        assertEquals(1, providerLatencies.sampleCount("frankfurter"));
+    }
+
+    private CompletableFuture<double[]> fetchRates(final String path) {
+        return providerClient.getJson("frankfurter", url(path), url(path),
+                parser -> JsonRates.read(parser, "rates"), Rates.NONE);
+    }
+
+    private String url(final String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(final HttpExchange exchange, final int status,
+            final String json) throws IOException {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
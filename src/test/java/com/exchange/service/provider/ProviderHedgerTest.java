@@ -0,0 +1,86 @@
+package com.exchange.service.provider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.exchange.service.service.MetricsService;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProviderHedgerTest {
+
+    private static final String PROVIDER = "frankfurter";
+
+    private MetricsService metricsService;
+    private ProviderLatencies providerLatencies;
+    private ProviderHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        metricsService = mock(MetricsService.class);
+        providerLatencies = new ProviderLatencies();
+        hedger = new ProviderHedger(metricsService, providerLatencies);
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "quantile", 0.95);
+        ReflectionTestUtils.setField(hedger, "minDelayMs", 10L);
+        ReflectionTestUtils.setField(hedger, "minSamples", 5);
+
+        for (int i = 0; i < 5; i++) {
+            hedger.call(PROVIDER, () -> CompletableFuture.completedFuture("warm-up"), CompletableFuture::new).join();
+        }
+    }
+
+    @Test
+    void test_hedge_wins_and_primary_is_cancelled_when_primary_is_slow() {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+
+        final String result = hedger.call(PROVIDER, () -> primary,
+                () -> CompletableFuture.completedFuture("hedge")).orTimeout(1, TimeUnit.SECONDS).join();
+
+        assertEquals("hedge", result);
+        assertThrows(CancellationException.class, () -> primary.get(1, TimeUnit.SECONDS));
+        verify(metricsService).incrementHedges(PROVIDER);
+        verify(metricsService, timeout(1000)).incrementHedgesWon(PROVIDER);
+    }
+
+    @Test
+    void test_no_hedge_when_primary_answers_in_time() {
+        final String result = hedger.call(PROVIDER, () -> CompletableFuture.completedFuture("primary"),
+                () -> CompletableFuture.completedFuture("hedge")).join();
+
+        assertEquals("primary", result);
+        verify(metricsService, never()).incrementHedges(PROVIDER);
+    }
+
+    @Test
+    void test_no_hedge_after_primary_fails() {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        final CompletableFuture<String> result = hedger.call(PROVIDER, () -> primary,
+                () -> CompletableFuture.completedFuture("hedge"));
+
+        primary.completeExceptionally(new IllegalStateException("down"));
+
+        assertThrows(CompletionException.class, result::join);
+        verify(metricsService, after(100).never()).incrementHedges(PROVIDER);
+    }
+
+    @Test
+    void test_successful_attempts_are_recorded_as_latency_samples() {
+        assertEquals(5, providerLatencies.sampleCount(PROVIDER));
+        assertEquals(0, providerLatencies.sampleCount("unknown"));
+    }
+
+}
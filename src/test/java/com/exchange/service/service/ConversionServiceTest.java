@@ -0,0 +1,112 @@
+package com.exchange.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.Rates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConversionServiceTest {
+
+    private ExchangeRateService exchangeRateService;
+    private ConversionService conversionService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        conversionService = new ConversionService(exchangeRateService, mock(MetricsService.class), new ObjectMapper());
+        ReflectionTestUtils.setField(conversionService, "maxRateTables", 10);
+
+        final RateTable usd = RateTable.builder()
+                .base("USD")
+                .rates(Rates.of(Map.of("EUR", 0.5)))
+                .fetchedAt(Instant.now())
+                .build();
+        when(exchangeRateService.resolveRateTable("USD")).thenReturn(usd);
+        when(exchangeRateService.rate(usd, "USD", "EUR")).thenReturn(0.5);
+        when(exchangeRateService.rate(usd, "USD", "GBP")).thenReturn(Double.NaN);
+        when(exchangeRateService.rate(usd, "USD", "JPY")).thenReturn(0.0000001);
+        when(exchangeRateService.resolveRateTable("XXX"))
+                .thenThrow(new ExchangeRateException("Unable to fetch exchange rates from any provider"));
+    }
+
+    @Test
+    void test_converts_ndjson_records_in_order() throws IOException {
+        final String output = convert(ConversionFormat.NDJSON,
+                "{\"amount\":10,\"from\":\"usd\",\"to\":\"EUR\"}\n"
+                        + "\n"
+                        + "{\"amount\":4,\"from\":\"USD\",\"to\":\"GBP\"}\n"
+                        + "not json\n");
+
+        assertEquals("{\"amount\":10.0,\"from\":\"USD\",\"to\":\"EUR\",\"rate\":0.5,\"converted\":5.0}\n"
+                + "{\"amount\":4.0,\"from\":\"USD\",\"to\":\"GBP\",\"error\":\"No exchange rate from USD to GBP\"}\n"
+                + "{\"error\":\"Malformed record\"}\n", output);
+        verify(exchangeRateService, times(1)).resolveRateTable("USD");
+    }
+
+    @Test
+    void test_converts_csv_records_and_skips_header() throws IOException {
+        final String output = convert(ConversionFormat.CSV,
+                "amount,from,to\n10,USD,EUR\n2,XXX,EUR\n3,XXX,EUR\n");
+
+        assertEquals("amount,from,to,rate,converted,error\n"
+                + "10.0,USD,EUR,0.5,5.0,\n"
+                + "2.0,XXX,EUR,,,No exchange rates available for XXX\n"
+                + "3.0,XXX,EUR,,,No exchange rates available for XXX\n", output);
+        verify(exchangeRateService, times(1)).resolveRateTable("XXX");
+    }
+
+    @Test
+    void test_rejects_unknown_currencies_without_resolving_them() throws IOException {
+        final String output = convert(ConversionFormat.CSV, "1,BOGUS,EUR\n1,USD,NOPE\n");
+
+        assertEquals("amount,from,to,rate,converted,error\n"
+                + "1.0,BOGUS,EUR,,,Unknown currency BOGUS\n"
+                + "1.0,USD,NOPE,,,Unknown currency NOPE\n", output);
+        verify(exchangeRateService, never()).resolveRateTable("BOGUS");
+    }
+
+    @Test
+    void test_reports_unexpected_failures_per_record() throws IOException {
+        when(exchangeRateService.resolveRateTable("GBP")).thenThrow(new IllegalStateException("boom"));
+
+        final String output = convert(ConversionFormat.CSV, "1,GBP,EUR\n10,USD,EUR\n");
+
+        assertEquals("amount,from,to,rate,converted,error\n"
+                + "1.0,GBP,EUR,,,No exchange rates available for GBP\n"
+                + "10.0,USD,EUR,0.5,5.0,\n", output);
+    }
+
+    @Test
+    void test_writes_csv_numbers_in_plain_notation() throws IOException {
+        final String output = convert(ConversionFormat.CSV, "20000000,USD,JPY\n");
+
+        assertEquals("amount,from,to,rate,converted,error\n"
+                + "20000000.0,USD,JPY,0.0000001,2.0,\n", output);
+    }
+
+    private String convert(final ConversionFormat format, final String input) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        conversionService.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, format);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+}
@@ -1,31 +1,75 @@
 package com.exchange.service.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.BatchExchangeRateResponse;
+import com.exchange.service.model.BatchExchangeRateResult;
+import com.exchange.service.model.ExchangeRateQuery;
 import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.HistoricalRatesResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.provider.FrankfurterRateProvider;
+import com.exchange.service.provider.FreeExchangeRateProvider;
+import com.exchange.service.provider.ProviderCapabilities;
+import com.exchange.service.provider.ProviderClient;
+import com.exchange.service.provider.ProviderExecutors;
+import com.exchange.service.provider.ProviderHedger;
+import com.exchange.service.provider.ProviderLatencies;
+import com.exchange.service.provider.ProviderRegistry;
+import com.exchange.service.provider.ProviderResilience;
+import com.exchange.service.provider.RateProvider;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.Rates;
+import com.exchange.service.util.RequestTiming;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class ExchangeRateServiceTest {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private RestTemplate restTemplate;
     private ExchangeRateService exchangeRateService;
 
@@ -33,7 +77,15 @@ class ExchangeRateServiceTest {
     void setUp() {
         restTemplate = mock(RestTemplate.class);
         final MetricsService metricsService = mock(MetricsService.class);
-        exchangeRateService = new ExchangeRateService(restTemplate, metricsService);
+        final ProviderExecutors providerExecutors = new ProviderExecutors(new MockEnvironment(), metricsService);
+        final ProviderClient providerClient = new ProviderClient(restTemplate, HttpClient.newHttpClient(),
+                OBJECT_MAPPER, providerExecutors, new ProviderHedger(metricsService, new ProviderLatencies()),
+                metricsService);
+        final ProviderRegistry providerRegistry = new ProviderRegistry(List.of(
+                new FreeExchangeRateProvider(providerClient, 800, 1.0),
+                new FrankfurterRateProvider(providerClient, 800, 1.0)), metricsService);
+        exchangeRateService = configured(new ExchangeRateService(providerRegistry, resilience(10), metricsService,
+                Caffeine.newBuilder().build(), event -> { }, mock(HistoricalRateStore.class)));
     }
 
     @Test
@@ -48,26 +100,366 @@ class ExchangeRateServiceTest {
         assertEquals(1.2, response.getRates().get("EUR"), 0.001);
     }
 
+    @Test
+    void test_records_fetch_phases_on_cache_miss_only() {
+        mockFreeExchangeResponse("usd", Map.of("eur", 1.1));
+        mockFrankfurterResponse(Map.of("EUR", 1.3));
+
+        final RequestTiming miss = RequestTiming.start();
+        exchangeRateService.getRateTableAsync(RateKey.of("USD", "EUR"), miss).join();
+        final RequestTiming hit = RequestTiming.start();
+        exchangeRateService.getRateTableAsync(RateKey.of("USD", "EUR"), hit).join();
+
+        assertTrue(miss.ran(RequestTiming.Phase.CACHE));
+        assertTrue(miss.ran(RequestTiming.Phase.UPSTREAM));
+        assertTrue(miss.ran(RequestTiming.Phase.AVERAGE));
+        assertTrue(miss.ran(RequestTiming.Phase.FETCH));
+        assertTrue(hit.ran(RequestTiming.Phase.CACHE));
+        assertFalse(hit.ran(RequestTiming.Phase.FETCH));
+    }
+
+    @Test
+    void test_answers_any_symbol_subset_from_cached_base_table() {
+        mockFreeExchangeResponse("usd", Map.of("eur", 1.1, "gbp", 0.8, "jpy", 150.0));
+        mockFrankfurterResponse(Map.of("EUR", 1.3, "GBP", 0.8));
+
+        exchangeRateService.getExchangeRates("USD", "EUR,GBP");
+        final ExchangeRateResponse response = exchangeRateService.getExchangeRates("usd", "EUR,JPY");
+
+        assertEquals(2, response.getRates().size());
+        assertEquals(1.2, response.getRates().get("EUR"), 0.001);
+        assertEquals(150.0, response.getRates().get("JPY"), 0.001);
+        verify(restTemplate, times(1)).execute(
+                contains("currency-api"),
+                eq(HttpMethod.GET),
+                any(RequestCallback.class),
+                any(ResponseExtractor.class));
+    }
+
+    @Test
+    void test_returns_symbol_first_registered_by_the_fetch() {
+        mockFreeExchangeResponse("usd", Map.of("eur", 1.1, "qxc", 0.00004));
+        mockFrankfurterResponse(Map.of("EUR", 1.3));
+
+        final ExchangeRateResponse response = exchangeRateService.getExchangeRates("USD", "qxc,EUR");
+
+        assertEquals(0.00004, response.getRates().get("QXC"), 1e-9);
+        assertEquals(1.2, response.getRates().get("EUR"), 0.001);
+    }
+
+    @Test
+    void test_triangulates_cross_rates_from_pivot_table() {
+        ReflectionTestUtils.setField(exchangeRateService, "triangulationEnabled", true);
+        mockFreeExchangeResponse("eur", Map.of("usd", 1.25, "gbp", 0.85));
+        mockFrankfurterResponse(Map.of("USD", 1.25, "GBP", 0.85));
+
+        final ExchangeRateResponse response = exchangeRateService.getExchangeRates("USD", "GBP,EUR");
+
+        assertEquals("USD", response.getBase());
+        assertEquals(0.68, response.getRates().get("GBP"), 0.0001);
+        assertEquals(0.8, response.getRates().get("EUR"), 0.0001);
+        verify(restTemplate, times(1)).execute(
+                contains("currencies/eur.json"),
+                eq(HttpMethod.GET),
+                any(RequestCallback.class),
+                any(ResponseExtractor.class));
+    }
+
+    @Test
+    void test_weights_average_by_provider_weight() {
+        final ProviderRegistry providerRegistry = new ProviderRegistry(List.of(
+                stubProvider("primary", 3.0, Map.of("EUR", 1.0)),
+                stubProvider("secondary", 1.0, Map.of("EUR", 2.0, "GBP", 0.8))), mock(MetricsService.class));
+        final ExchangeRateService service = configured(new ExchangeRateService(providerRegistry, resilience(10),
+                mock(MetricsService.class), Caffeine.newBuilder().build(), event -> { },
+                mock(HistoricalRateStore.class)));
+
+        final ExchangeRateResponse response = service.getExchangeRates("USD", "EUR,GBP");
+
+        assertEquals(1.25, response.getRates().get("EUR"), 0.0001);
+        assertEquals(0.8, response.getRates().get("GBP"), 0.0001);
+    }
+
+    @Test
+    void test_batch_fetches_each_base_once() {
+        final RateProvider provider = stubProvider("primary", 1.0, Map.of("EUR", 0.9, "GBP", 0.8));
+        when(provider.fetchRates("EUR"))
+                .thenReturn(CompletableFuture.completedFuture(Rates.of(Map.of("USD", 1.1))));
+        when(provider.fetchRates("JPY")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(provider), mock(MetricsService.class)), resilience(10),
+                mock(MetricsService.class), Caffeine.newBuilder().build(), event -> { },
+                mock(HistoricalRateStore.class)));
+        ReflectionTestUtils.setField(service, "maxBatchQueries", 10);
+
+        final BatchExchangeRateResponse response = service.getExchangeRatesBatchAsync(List.of(
+                new ExchangeRateQuery("USD", "EUR"),
+                new ExchangeRateQuery("JPY", "USD"),
+                new ExchangeRateQuery("usd", "GBP"),
+                new ExchangeRateQuery("EUR", "USD"),
+                new ExchangeRateQuery("jpy", "EUR"))).join();
+
+        final List<BatchExchangeRateResult> results = response.getResults();
+        assertEquals(5, results.size());
+        assertEquals(0.9, results.get(0).getResult().getRates().get("EUR"));
+        assertNull(results.get(1).getResult());
+        assertNotNull(results.get(1).getError());
+        assertEquals(0.8, results.get(2).getResult().getRates().get("GBP"));
+        assertEquals(1.1, results.get(3).getResult().getRates().get("USD"));
+        assertNull(results.get(3).getError());
+        assertNotNull(results.get(4).getError());
+        verify(provider, times(1)).fetchRates("USD");
+        verify(provider, times(1)).fetchRates("EUR");
+        verify(provider, times(1)).fetchRates("JPY");
+    }
+
+    @Test
+    void test_batch_rejects_incomplete_queries() {
+        ReflectionTestUtils.setField(exchangeRateService, "maxBatchQueries", 10);
+        final List<ExchangeRateQuery> withNull = new ArrayList<>();
+        withNull.add(new ExchangeRateQuery("USD", "EUR"));
+        withNull.add(null);
+
+        assertThrows(IllegalArgumentException.class, () -> exchangeRateService.getExchangeRatesBatchAsync(withNull));
+        assertThrows(IllegalArgumentException.class, () -> exchangeRateService.getExchangeRatesBatchAsync(List.of(
+                new ExchangeRateQuery(null, "EUR"))));
+        assertThrows(IllegalArgumentException.class, () -> exchangeRateService.getExchangeRatesBatchAsync(List.of(
+                new ExchangeRateQuery("USD", null))));
+    }
+
+    @Test
+    void test_batch_rejects_too_many_queries() {
+        ReflectionTestUtils.setField(exchangeRateService, "maxBatchQueries", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> exchangeRateService.getExchangeRatesBatchAsync(List.of(
+                new ExchangeRateQuery("USD", "EUR"), new ExchangeRateQuery("EUR", "USD"))));
+    }
+
+    @Test
+    void test_skips_provider_with_open_circuit() {
+        final RateProvider failing = stubProvider("failing", 1.0, Map.of());
+        when(failing.fetchRates("USD")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+        final MetricsService metricsService = mock(MetricsService.class);
+        final ProviderRegistry providerRegistry = new ProviderRegistry(List.of(
+                stubProvider("healthy", 1.0, Map.of("EUR", 1.0)), failing), metricsService);
+        final ExchangeRateService service = configured(new ExchangeRateService(providerRegistry, resilience(1),
+                metricsService, Caffeine.newBuilder().build(), event -> { }, mock(HistoricalRateStore.class)));
+
+        service.refreshRateTable("USD");
+        service.refreshRateTable("USD");
+
+        verify(failing, times(1)).fetchRates("USD");
+        verify(metricsService).incrementShortCircuited("failing");
+    }
+
+    @Test
+    void test_serves_history_from_store_after_first_fetch(@TempDir final Path directory) throws IOException {
+        final LocalDate from = LocalDate.of(2024, 1, 1);
+        final LocalDate to = LocalDate.of(2024, 1, 14);
+        final SortedMap<LocalDate, double[]> series = new TreeMap<>();
+        series.put(LocalDate.of(2024, 1, 2), Rates.of(Map.of("USD", 2.0, "GBP", 0.8)));
+        series.put(LocalDate.of(2024, 1, 3), Rates.of(Map.of("USD", 4.0, "GBP", 0.8)));
+        series.put(LocalDate.of(2024, 1, 12), Rates.of(Map.of("USD", 4.0, "GBP", 0.8)));
+        final RateProvider provider = mock(RateProvider.class);
+        when(provider.getName()).thenReturn("historical");
+        when(provider.getCapabilities()).thenReturn(ProviderCapabilities.builder().historical(true).build());
+        when(provider.fetchHistory("EUR", from, to)).thenReturn(CompletableFuture.completedFuture(series));
+
+        final HistoricalRateStore store = new HistoricalRateStore();
+        ReflectionTestUtils.setField(store, "path", directory.resolve("history.dat").toString());
+        ReflectionTestUtils.setField(store, "maxCurrencies", 8);
+        store.open();
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(provider), mock(MetricsService.class)), resilience(10),
+                mock(MetricsService.class), Caffeine.newBuilder().build(), event -> { }, store));
+        ReflectionTestUtils.setField(service, "maxHistoryDays", 366);
+        ReflectionTestUtils.setField(service, "historyChunkDays", 90);
+        ReflectionTestUtils.setField(service, "historyTimeoutMs", 1000L);
+
+        final HistoricalRatesResponse range = service.getHistoricalRatesAsync("usd", "EUR,GBP", from, to).join();
+        final HistoricalRatesResponse day = service.getHistoricalRatesAsync("USD", "GBP", LocalDate.of(2024, 1, 13))
+                .join();
+        store.close();
+
+        assertEquals(Map.of("EUR", 0.5, "GBP", 0.4), range.getRates().get(LocalDate.of(2024, 1, 2)));
+        assertEquals(Map.of("EUR", 0.25, "GBP", 0.2), range.getRates().get(LocalDate.of(2024, 1, 3)));
+        assertEquals(LocalDate.of(2024, 1, 12), day.getStartDate());
+        assertEquals(Map.of(LocalDate.of(2024, 1, 12), Map.of("GBP", 0.2)), day.getRates());
+        verify(provider, times(1)).fetchHistory(any(), any(), any());
+    }
+
+    @Test
+    void test_skips_history_provider_with_open_circuit(@TempDir final Path directory) throws IOException {
+        final SortedMap<LocalDate, double[]> series = new TreeMap<>();
+        series.put(LocalDate.of(2024, 1, 2), Rates.of(Map.of("USD", 2.0)));
+        series.put(LocalDate.of(2024, 3, 4), Rates.of(Map.of("USD", 2.0)));
+        final RateProvider failing = mock(RateProvider.class);
+        when(failing.getName()).thenReturn("failing");
+        when(failing.getCapabilities()).thenReturn(ProviderCapabilities.builder().historical(true).build());
+        when(failing.fetchHistory(eq("EUR"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+        final RateProvider healthy = mock(RateProvider.class);
+        when(healthy.getName()).thenReturn("healthy");
+        when(healthy.getCapabilities()).thenReturn(ProviderCapabilities.builder().historical(true).build());
+        when(healthy.fetchHistory(eq("EUR"), any(), any())).thenReturn(CompletableFuture.completedFuture(series));
+
+        final HistoricalRateStore store = new HistoricalRateStore();
+        ReflectionTestUtils.setField(store, "path", directory.resolve("history.dat").toString());
+        ReflectionTestUtils.setField(store, "maxCurrencies", 8);
+        store.open();
+        final MetricsService metricsService = mock(MetricsService.class);
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(failing, healthy), metricsService), resilience(1),
+                metricsService, Caffeine.newBuilder().build(), event -> { }, store));
+        ReflectionTestUtils.setField(service, "maxHistoryDays", 366);
+        ReflectionTestUtils.setField(service, "historyChunkDays", 90);
+        ReflectionTestUtils.setField(service, "historyTimeoutMs", 1000L);
+
+        service.getHistoricalRatesAsync("USD", "EUR", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 14)).join();
+        final HistoricalRatesResponse range = service.getHistoricalRatesAsync("USD", "EUR",
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 14)).join();
+        store.close();
+
+        assertEquals(Map.of(LocalDate.of(2024, 3, 4), Map.of("EUR", 0.5)), range.getRates());
+        verify(failing, times(1)).fetchHistory(any(), any(), any());
+        verify(healthy, times(2)).fetchHistory(any(), any(), any());
+        verify(metricsService).incrementShortCircuited("failing");
+    }
+
+    @Test
+    void test_does_not_refetch_unsettled_days_on_repeated_queries(@TempDir final Path directory) throws IOException {
+        final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        final LocalDate from = today.minusDays(7);
+        final LocalDate published = today.minusDays(3);
+        final SortedMap<LocalDate, double[]> series = new TreeMap<>();
+        series.put(published, Rates.of(Map.of("USD", 2.0)));
+        final RateProvider provider = mock(RateProvider.class);
+        when(provider.getName()).thenReturn("historical");
+        when(provider.getCapabilities()).thenReturn(ProviderCapabilities.builder().historical(true).build());
+        when(provider.fetchHistory(eq("EUR"), any(), any())).thenReturn(CompletableFuture.completedFuture(series));
+
+        final HistoricalRateStore store = new HistoricalRateStore();
+        ReflectionTestUtils.setField(store, "path", directory.resolve("history.dat").toString());
+        ReflectionTestUtils.setField(store, "maxCurrencies", 8);
+        ReflectionTestUtils.setField(store, "recheckMs", 60_000L);
+        store.open();
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(provider), mock(MetricsService.class)), resilience(10),
+                mock(MetricsService.class), Caffeine.newBuilder().build(), event -> { }, store));
+        ReflectionTestUtils.setField(service, "maxHistoryDays", 366);
+        ReflectionTestUtils.setField(service, "historyChunkDays", 90);
+        ReflectionTestUtils.setField(service, "historyTimeoutMs", 1000L);
+
+        service.getHistoricalRatesAsync("USD", "EUR", from, today).join();
+        service.getHistoricalRatesAsync("USD", "EUR", from, today).join();
+        final HistoricalRatesResponse day = service.getHistoricalRatesAsync("USD", "EUR", today).join();
+        store.close();
+
+        assertEquals(published, day.getStartDate());
+        verify(provider, times(1)).fetchHistory(any(), any(), any());
+    }
+
+    @Test
+    void test_rejects_history_range_ending_in_future() {
+        final LocalDate from = LocalDate.now().minusDays(1);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                exchangeRateService.getHistoricalRatesAsync("USD", "EUR", from, from.plusDays(5)));
+    }
+
+    @Test
+    void test_serves_stale_table_while_revalidating() {
+        final RateProvider provider = stubProvider("primary", 1.0, Map.of("EUR", 0.9));
+        final MetricsService metricsService = mock(MetricsService.class);
+        final Cache<String, RateTable> cache = Caffeine.newBuilder().build();
+        cache.put("USD", table("USD", Duration.ofMinutes(90), Map.of("EUR", 0.8)));
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(provider), metricsService), resilience(10), metricsService,
+                cache, event -> { }, mock(HistoricalRateStore.class)));
+
+        final ExchangeRateResponse stale = service.getExchangeRates("USD", "EUR");
+        final ExchangeRateResponse fresh = service.getExchangeRates("USD", "EUR");
+
+        assertEquals(0.8, stale.getRates().get("EUR"));
+        assertTrue(stale.isStale());
+        assertEquals(0.9, fresh.getRates().get("EUR"));
+        assertFalse(fresh.isStale());
+        verify(provider, times(1)).fetchRates("USD");
+        verify(metricsService).incrementStaleServed();
+    }
+
+    @Test
+    void test_serves_last_known_table_past_hard_ttl_when_providers_fail() {
+        final RateProvider provider = stubProvider("primary", 1.0, Map.of());
+        when(provider.fetchRates("USD")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+        final Cache<String, RateTable> cache = Caffeine.newBuilder().build();
+        cache.put("USD", table("USD", Duration.ofHours(5), Map.of("EUR", 0.8)));
+        final ExchangeRateService service = configured(new ExchangeRateService(
+                new ProviderRegistry(List.of(provider), mock(MetricsService.class)), resilience(10),
+                mock(MetricsService.class), cache, event -> { }, mock(HistoricalRateStore.class)));
+
+        final ExchangeRateResponse response = service.getExchangeRates("USD", "EUR");
+
+        assertEquals(0.8, response.getRates().get("EUR"));
+        assertTrue(response.isStale());
+        verify(provider, times(1)).fetchRates("USD");
+    }
+
+    private static ExchangeRateService configured(final ExchangeRateService service) {
+        ReflectionTestUtils.setField(service, "cacheTtlMs", Duration.ofHours(1).toMillis());
+        ReflectionTestUtils.setField(service, "hardTtlMs", Duration.ofHours(2).toMillis());
+        return service;
+    }
+
+    private static RateTable table(final String base, final Duration age, final Map<String, Double> rates) {
+        return RateTable.builder()
+                .base(base)
+                .rates(Rates.of(rates))
+                .fetchedAt(Instant.now().minus(age))
+                .build();
+    }
+
+    private ProviderResilience resilience(final int minimumCalls) {
+        final ProviderResilience resilience = new ProviderResilience(new ProviderLatencies(),
+                mock(MetricsService.class));
+        ReflectionTestUtils.setField(resilience, "windowSize", 20);
+        ReflectionTestUtils.setField(resilience, "minimumCalls", minimumCalls);
+        ReflectionTestUtils.setField(resilience, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(resilience, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(resilience, "halfOpenProbes", 1);
+        return resilience;
+    }
+
+    private RateProvider stubProvider(final String name, final double weight, final Map<String, Double> rates) {
+        final RateProvider provider = mock(RateProvider.class);
+        when(provider.getName()).thenReturn(name);
+        when(provider.getWeight()).thenReturn(weight);
+        when(provider.getTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(provider.getCapabilities()).thenReturn(ProviderCapabilities.builder().fullTable(true).build());
+        when(provider.fetchRates("USD")).thenReturn(CompletableFuture.completedFuture(Rates.of(rates)));
+        return provider;
+    }
+
     private void mockFreeExchangeResponse(final String base, final Map<String, Double> rates) {
         final Map<String, Object> response = new HashMap<>();
         response.put(base, rates);
-        when(restTemplate.exchange(
-                contains("currency-api"),
-                eq(org.springframework.http.HttpMethod.GET),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+        mockResponse("currency-api", HttpStatus.OK, response);
     }
 
     private void mockFrankfurterResponse(final Map<String, Double> rates) {
         final Map<String, Object> response = new HashMap<>();
         response.put("rates", rates);
-        when(restTemplate.exchange(
-                contains("frankfurter"),
-                eq(org.springframework.http.HttpMethod.GET),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+        mockResponse("frankfurter", HttpStatus.OK, response);
+    }
+
+    private void mockResponse(final String url, final HttpStatus status, final Object body) {
+        when(restTemplate.execute(
+                contains(url),
+                eq(HttpMethod.GET),
+                any(RequestCallback.class),
+                any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResponseExtractor<?>>getArgument(3).extractData(
+                        new MockClientHttpResponse(OBJECT_MAPPER.writeValueAsBytes(body), status)));
     }
 
     @Test
@@ -81,12 +473,7 @@ class ExchangeRateServiceTest {
     }
 
     private void mockFailedFrankfurterResponse() {
-        when(restTemplate.exchange(
-                contains("frankfurter"),
-                eq(org.springframework.http.HttpMethod.GET),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
+        mockResponse("frankfurter", HttpStatus.INTERNAL_SERVER_ERROR, Map.of());
     }
 
     @Test
@@ -99,12 +486,7 @@ class ExchangeRateServiceTest {
     }
 
     private void mockEmptyFreeExchangeResponse() {
-        when(restTemplate.exchange(
-                contains("currency-api"),
-                eq(org.springframework.http.HttpMethod.GET),
-                isNull(),
-                any(ParameterizedTypeReference.class)))
-                .thenReturn(new ResponseEntity<>(Map.of(), HttpStatus.OK));
+        mockResponse("currency-api", HttpStatus.OK, Map.of());
     }
 
 }
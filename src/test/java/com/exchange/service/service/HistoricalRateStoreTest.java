@@ -0,0 +1,151 @@
+package com.exchange.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.exchange.service.util.Rates;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HistoricalRateStoreTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+    private static final LocalDate WEDNESDAY = MONDAY.plusDays(2);
+    private static final LocalDate SUNDAY = MONDAY.plusDays(6);
+
+    @TempDir
+    Path directory;
+
+    private HistoricalRateStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void test_reads_cross_rates_of_published_days() {
+        store.append(MONDAY, SUNDAY, rates(), SUNDAY.plusDays(1));
+
+        final SortedMap<LocalDate, Map<String, Double>> history =
+                store.read(MONDAY, SUNDAY, "USD", List.of("EUR", "GBP"));
+
+        assertEquals(List.of(TUESDAY, WEDNESDAY), List.copyOf(history.keySet()));
+        assertEquals(0.5, history.get(TUESDAY).get("EUR"));
+        assertEquals(0.4, history.get(TUESDAY).get("GBP"));
+        assertEquals(Map.of("EUR", 0.25), history.get(WEDNESDAY));
+    }
+
+    @Test
+    void test_keeps_unsettled_days_without_rates_missing() {
+        store.append(MONDAY, SUNDAY, rates(), WEDNESDAY.plusDays(2));
+
+        assertNull(store.firstMissing(MONDAY, WEDNESDAY.plusDays(1)));
+        assertEquals(WEDNESDAY.plusDays(2), store.firstMissing(MONDAY, SUNDAY));
+        assertEquals(SUNDAY, store.lastMissing(MONDAY, SUNDAY));
+    }
+
+    @Test
+    void test_skips_checked_days_until_recheck() {
+        ReflectionTestUtils.setField(store, "recheckMs", 60_000L);
+
+        store.append(MONDAY, SUNDAY, rates(), WEDNESDAY.plusDays(2));
+        store.recordChecked(SUNDAY.plusDays(1), SUNDAY.plusDays(7));
+
+        assertNull(store.firstMissing(MONDAY, SUNDAY.plusDays(7)));
+        assertEquals(SUNDAY.plusDays(8), store.lastMissing(MONDAY, SUNDAY.plusDays(8)));
+    }
+
+    @Test
+    void test_persists_rates_across_reopen() throws IOException {
+        store.append(MONDAY, SUNDAY, rates(), SUNDAY.plusDays(1));
+        store.close();
+
+        store = open();
+
+        assertTrue(store.knows("GBP"));
+        assertFalse(store.knows("JPY"));
+        assertNull(store.firstMissing(MONDAY, SUNDAY));
+        assertEquals(Map.of("USD", 2.0, "GBP", 0.8), store.read(TUESDAY, TUESDAY, "EUR", List.of("USD", "GBP"))
+                .get(TUESDAY));
+    }
+
+    @Test
+    void test_migrates_rates_when_capacity_grows() throws IOException {
+        store.append(MONDAY, SUNDAY, rates(), SUNDAY.plusDays(1));
+        store.close();
+
+        store = open(16);
+
+        assertNull(store.firstMissing(MONDAY, SUNDAY));
+        assertEquals(Map.of("USD", 4.0), store.read(WEDNESDAY, WEDNESDAY, "EUR", List.of("USD", "GBP"))
+                .get(WEDNESDAY));
+        store.close();
+
+        store = open(4);
+
+        assertTrue(store.knows("USD"));
+        assertEquals(0.4, store.read(TUESDAY, TUESDAY, "USD", List.of("GBP")).get(TUESDAY).get("GBP"));
+    }
+
+    @Test
+    void test_ignores_codes_too_long_to_store() throws IOException {
+        final SortedMap<LocalDate, double[]> rates = new TreeMap<>();
+        rates.put(TUESDAY, Rates.of(Map.of("USD", 2.0, "WRAPPEDBTC", 0.001, "WRAPPEDBTH", 0.002)));
+        store.append(MONDAY, SUNDAY, rates, SUNDAY.plusDays(1));
+        store.close();
+
+        store = open();
+
+        assertTrue(store.knows("USD"));
+        assertFalse(store.knows("WRAPPEDBTC"));
+        assertFalse(store.knows("WRAPPEDBTH"));
+    }
+
+    @Test
+    void test_rejects_days_outside_store() {
+        assertThrows(IllegalArgumentException.class, () -> store.firstMissing(LocalDate.of(1998, 12, 31), MONDAY));
+    }
+
+    private HistoricalRateStore open() throws IOException {
+        return open(8);
+    }
+
+    private HistoricalRateStore open(final int maxCurrencies) throws IOException {
+        final HistoricalRateStore opened = new HistoricalRateStore();
+        ReflectionTestUtils.setField(opened, "path", directory.resolve("history.dat").toString());
+        ReflectionTestUtils.setField(opened, "maxCurrencies", maxCurrencies);
+        opened.open();
+        return opened;
+    }
+
+    private static SortedMap<LocalDate, double[]> rates() {
+        final SortedMap<LocalDate, double[]> rates = new TreeMap<>();
+        rates.put(TUESDAY, Rates.of(Map.of("USD", 2.0, "GBP", 0.8)));
+        rates.put(WEDNESDAY, Rates.of(Map.of("USD", 4.0)));
+        return rates;
+    }
+
+}
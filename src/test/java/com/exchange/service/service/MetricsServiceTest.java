@@ -2,6 +2,15 @@ package com.exchange.service.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.exchange.service.model.LatencyPercentiles;
+import com.exchange.service.util.RequestTiming;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -10,12 +19,15 @@ import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 class MetricsServiceTest {
 
     private final String FREE = "free_exchange";
+    private SimpleMeterRegistry registry;
     private MetricsService metricsService;
 
     @BeforeEach
     void setUp() {
-        metricsService = new MetricsService(new SimpleMeterRegistry());
+        registry = new SimpleMeterRegistry();
+        metricsService = new MetricsService(registry);
         metricsService.init();
+        metricsService.registerProvider(FREE);
     }
 
     @Test
@@ -43,6 +55,75 @@ class MetricsServiceTest {
         assertEquals(200.0, metricsService.getAvgTime(FREE), 0.01);
     }
 
+    @Test
+    void test_record_time_feeds_windowed_percentiles() {
+        for (int millis = 1; millis <= 100; millis++) {
+            metricsService.recordTime(FREE, millis);
+        }
+
+        final Map<String, LatencyPercentiles> percentiles = metricsService.getResponseTimePercentiles(FREE);
+
+        assertEquals(List.of("1m", "5m", "15m"), List.copyOf(percentiles.keySet()));
+        assertEquals(100, percentiles.get("1m").getCount());
+        assertEquals(50, percentiles.get("5m").getP50(), 0.5);
+        assertEquals(99, percentiles.get("15m").getP99(), 1);
+        assertEquals(100, percentiles.get("15m").getP999(), 1);
+    }
+
+    @Test
+    void test_request_time_percentiles_are_published_as_gauges() {
+        metricsService.recordRequestTime(TimeUnit.MILLISECONDS.toNanos(40));
+
+        final double p99 = registry.get("rates.request.latency")
+                .tags("window", "1m", "quantile", "0.99")
+                .gauge().value();
+
+        assertEquals(40, p99, 0.5);
+        assertEquals(1, metricsService.getRequestTimePercentiles().get("1m").getCount());
+    }
+
+    @Test
+    void test_record_phases_times_only_phases_that_ran() {
+        final RequestTiming timing = RequestTiming.start();
+        timing.record(RequestTiming.Phase.KEY, System.nanoTime());
+        timing.record(RequestTiming.Phase.CACHE, System.nanoTime());
+
+        metricsService.recordPhases(timing);
+
+        assertEquals(1, registry.get("rates.request.phase").tag("phase", "key").timer().count());
+        assertEquals(1, registry.get("rates.request.phase").tag("phase", "cache").timer().count());
+        assertEquals(0, registry.get("rates.request.phase").tag("phase", "fetch").timer().count());
+    }
+
+    @Test
+    void test_unregistered_api_reads_as_zero() {
+        metricsService.incrementRequests("unknown");
+
+        assertEquals(0, metricsService.getRequests("unknown"));
+        assertEquals(0.0, metricsService.getAvgTime("unknown"));
+    }
+
+    @Test
+    void test_record_fetch_callers_counts_coalesced_requests() {
+        metricsService.recordFetchCallers(1);
+        metricsService.recordFetchCallers(4);
+        assertEquals(3, metricsService.getCoalescedRequests());
+    }
+
+    @Test
+    void test_register_executor_exports_queue_depth_and_active_threads() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        executor.getQueue().add(() -> { });
+        executor.getQueue().add(() -> { });
+
+        metricsService.registerExecutor(FREE, executor);
+
+        assertEquals(2, metricsService.getQueueDepth(FREE));
+        assertEquals(0, metricsService.getActiveThreads(FREE));
+        executor.shutdownNow();
+    }
+
     @Test
     void test_get_last_response_time_and_success_rate() {
         metricsService.recordTime("free_exchange", 100);
@@ -0,0 +1,254 @@
+package com.exchange.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.exchange.service.error.ExchangeRateException;
+import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.Rates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateSubscriptionServiceTest {
+
+    private ExchangeRateService exchangeRateService;
+    private RateSubscriptionService subscriptionService;
+    private final List<CapturingEmitter> emitters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        subscriptionService = new RateSubscriptionService(exchangeRateService,
+                new ObjectMapper().registerModule(new JavaTimeModule())) {
+            @Override
+            SseEmitter createEmitter() {
+                final CapturingEmitter emitter = new CapturingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(subscriptionService, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(subscriptionService, "threads", 1);
+        ReflectionTestUtils.setField(subscriptionService, "sendThreads", 2);
+        subscriptionService.init();
+
+        when(exchangeRateService.getExchangeRatesAsync(RateKey.of("USD", "EUR,GBP")))
+                .thenReturn(CompletableFuture.completedFuture(ExchangeRateResponse.builder()
+                        .base("USD")
+                        .rates(Map.of("EUR", 0.9, "GBP", 0.8))
+                        .timestamp(LocalDateTime.now())
+                        .build()));
+        when(exchangeRateService.answers(any(RateTable.class), eq("USD"))).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        subscriptionService.shutdown();
+    }
+
+    @Test
+    void test_pushes_only_changed_rates_serialized_once_per_group() throws InterruptedException {
+        subscriptionService.subscribe("usd", "GBP,EUR");
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        final RateTable table = RateTable.builder()
+                .base("USD")
+                .rates(Rates.of(Map.of("EUR", 0.95, "GBP", 0.8)))
+                .fetchedAt(Instant.now())
+                .build();
+        when(exchangeRateService.rate(table, "USD", "EUR")).thenReturn(0.95);
+        when(exchangeRateService.rate(table, "USD", "GBP")).thenReturn(0.8);
+
+        subscriptionService.onRateTableUpdated(new RateTableUpdatedEvent(table));
+
+        for (final CapturingEmitter emitter : emitters) {
+            assertTrue(emitter.delivered.await(1, TimeUnit.SECONDS));
+            assertEquals(2, emitter.events.size());
+            assertTrue(emitter.events.get(0).contains("\"GBP\":0.8"));
+        }
+        final Object delta = emitters.get(0).payloads.get(1);
+        assertSame(delta, emitters.get(1).payloads.get(1));
+        assertTrue(delta.toString().contains("\"EUR\":0.95"));
+        assertFalse(delta.toString().contains("GBP"));
+    }
+
+    @Test
+    void test_merges_updates_queued_behind_a_slow_subscriber() throws InterruptedException {
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        final CapturingEmitter slow = emitters.get(0);
+        final CapturingEmitter fast = emitters.get(1);
+        slow.release = new CountDownLatch(1);
+
+        publish(0.95, 0.8);
+        assertTrue(fast.awaitEvent("\"EUR\":0.95"));
+        publish(0.95, 0.7);
+        publish(0.97, 0.7);
+        assertTrue(fast.awaitEvent("\"EUR\":0.97"));
+        slow.release.countDown();
+
+        assertTrue(slow.awaitEvent("\"EUR\":0.97"));
+        assertEquals(3, slow.events.size());
+        assertTrue(slow.events.get(2).contains("\"GBP\":0.7"));
+    }
+
+    @Test
+    void test_sends_snapshot_before_deltas_published_while_it_loads() throws InterruptedException {
+        final CompletableFuture<ExchangeRateResponse> snapshot = new CompletableFuture<>();
+        when(exchangeRateService.getExchangeRatesAsync(RateKey.of("USD", "EUR,GBP"))).thenReturn(snapshot);
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        final CapturingEmitter emitter = emitters.get(0);
+
+        publish(0.95, 0.8);
+        snapshot.complete(ExchangeRateResponse.builder()
+                .base("USD")
+                .rates(Map.of("EUR", 0.9, "GBP", 0.8))
+                .timestamp(LocalDateTime.now().minusMinutes(1))
+                .build());
+
+        assertTrue(emitter.delivered.await(1, TimeUnit.SECONDS));
+        assertTrue(emitter.events.get(0).contains("\"GBP\":0.8"));
+        assertTrue(emitter.events.get(1).contains("\"EUR\":0.95"));
+        assertFalse(emitter.events.get(1).contains("GBP"));
+    }
+
+    @Test
+    void test_drops_deltas_older_than_the_snapshot() throws InterruptedException {
+        final CompletableFuture<ExchangeRateResponse> snapshot = new CompletableFuture<>();
+        when(exchangeRateService.getExchangeRatesAsync(RateKey.of("USD", "EUR,GBP"))).thenReturn(snapshot);
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        final CapturingEmitter emitter = emitters.get(0);
+
+        publish(0.95, 0.7);
+        snapshot.complete(ExchangeRateResponse.builder()
+                .base("USD")
+                .rates(Map.of("EUR", 0.9, "GBP", 0.8))
+                .timestamp(LocalDateTime.now().plusMinutes(1))
+                .build());
+        publish(0.97, 0.7);
+
+        assertTrue(emitter.delivered.await(1, TimeUnit.SECONDS));
+        assertTrue(emitter.events.get(0).contains("\"GBP\":0.8"));
+        assertTrue(emitter.events.get(1).contains("\"EUR\":0.97"));
+        assertFalse(emitter.awaitEvent("\"EUR\":0.95"));
+    }
+
+    @Test
+    void test_pushes_every_group_when_groups_outnumber_threads() throws InterruptedException {
+        ReflectionTestUtils.setField(subscriptionService, "maxSubscribers", 200);
+        when(exchangeRateService.getExchangeRatesAsync(any(RateKey.class)))
+                .thenReturn(CompletableFuture.completedFuture(ExchangeRateResponse.builder()
+                        .base("USD")
+                        .rates(Map.of())
+                        .timestamp(LocalDateTime.now())
+                        .build()));
+        for (int i = 0; i < 150; i++) {
+            subscriptionService.subscribe("USD", CurrencyRegistry.code(i));
+        }
+        final RateTable table = RateTable.builder()
+                .base("USD")
+                .rates(Rates.of(Map.of()))
+                .fetchedAt(Instant.now())
+                .build();
+        when(exchangeRateService.rate(eq(table), eq("USD"), any())).thenReturn(1.5);
+
+        subscriptionService.onRateTableUpdated(new RateTableUpdatedEvent(table));
+
+        for (final CapturingEmitter emitter : emitters) {
+            assertTrue(emitter.delivered.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void test_rejects_subscribers_over_limit() {
+        subscriptionService.subscribe("USD", "EUR,GBP");
+        subscriptionService.subscribe("USD", "EUR,GBP");
+
+        assertThrows(ExchangeRateException.class, () -> subscriptionService.subscribe("USD", "EUR,GBP"));
+        assertEquals(2, subscriptionService.getSubscriberCount());
+    }
+
+    private void publish(final double eur, final double gbp) {
+        final RateTable table = RateTable.builder()
+                .base("USD")
+                .rates(Rates.of(Map.of("EUR", eur, "GBP", gbp)))
+                .fetchedAt(Instant.now())
+                .build();
+        when(exchangeRateService.rate(table, "USD", "EUR")).thenReturn(eur);
+        when(exchangeRateService.rate(table, "USD", "GBP")).thenReturn(gbp);
+        subscriptionService.onRateTableUpdated(new RateTableUpdatedEvent(table));
+    }
+
+    /**
+     * Records the payloads sent to it instead of writing to a response.
+     * Once {@link #release} is set, sending a delta blocks until it is counted down, like a slow client.
+     */
+    private static final class CapturingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final List<Object> payloads = new CopyOnWriteArrayList<>();
+        private final CountDownLatch delivered = new CountDownLatch(2);
+        private volatile CountDownLatch release;
+
+        @Override
+        public void send(final SseEventBuilder builder) throws IOException {
+            if (release != null && !events.isEmpty()) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            for (final ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (MediaType.APPLICATION_JSON.equals(data.getMediaType())) {
+                    payloads.add(data.getData());
+                    events.add(data.getData().toString());
+                }
+            }
+            delivered.countDown();
+        }
+
+        boolean awaitEvent(final String fragment) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (System.nanoTime() < deadline) {
+                if (events.stream().anyMatch(event -> event.contains(fragment))) {
+                    return true;
+                }
+                Thread.sleep(5);
+            }
+            return false;
+        }
+
+    }
+
+}
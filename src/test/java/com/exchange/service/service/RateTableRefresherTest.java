@@ -0,0 +1,67 @@
+package com.exchange.service.service;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.Rates;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RateTableRefresherTest {
+
+    private ExchangeRateService exchangeRateService;
+    private Cache<String, RateTable> rateTableCache;
+    private RateTableRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        rateTableCache = Caffeine.newBuilder().maximumSize(10).executor(Runnable::run).build();
+        refresher = new RateTableRefresher(exchangeRateService, rateTableCache);
+        ReflectionTestUtils.setField(refresher, "refreshAfterMs", 60_000L);
+        ReflectionTestUtils.setField(refresher, "jitterMs", 0L);
+        ReflectionTestUtils.setField(refresher, "hotKeys", 10);
+        ReflectionTestUtils.setField(refresher, "threads", 1);
+        ReflectionTestUtils.setField(refresher, "queueCapacity", 10);
+        refresher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    void test_refreshes_only_tables_past_refresh_threshold() {
+        rateTableCache.put("USD", table("USD", Instant.now().minus(Duration.ofMinutes(2))));
+        rateTableCache.put("EUR", table("EUR", Instant.now()));
+
+        refresher.refreshHotTables();
+
+        verify(exchangeRateService, timeout(1000)).refreshRateTable("USD");
+        verify(exchangeRateService, after(200).never()).refreshRateTable("EUR");
+    }
+
+    private RateTable table(final String base, final Instant fetchedAt) {
+        return RateTable.builder()
+                .base(base)
+                .rates(Rates.of(Map.of("GBP", 0.8)))
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+
+}
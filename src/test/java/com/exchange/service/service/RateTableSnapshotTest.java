@@ -0,0 +1,92 @@
+package com.exchange.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.Rates;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RateTableSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private Cache<String, RateTable> rateTableCache;
+    private RateTableRefresher rateTableRefresher;
+    private RateTableSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("rates.snapshot");
+        rateTableCache = Caffeine.newBuilder().build();
+        rateTableRefresher = mock(RateTableRefresher.class);
+        snapshot = new RateTableSnapshot(rateTableCache, rateTableRefresher);
+        ReflectionTestUtils.setField(snapshot, "enabled", true);
+        ReflectionTestUtils.setField(snapshot, "path", file.toString());
+        ReflectionTestUtils.setField(snapshot, "maxStaleMs", Duration.ofHours(1).toMillis());
+    }
+
+    @Test
+    void test_round_trips_tables_through_file() throws IOException {
+        final Instant fetchedAt = Instant.ofEpochMilli(1_700_000_000_000L);
+        RateTableSnapshot.write(file, List.of(
+                table("USD", fetchedAt, Map.of("EUR", 0.9, "GBP", 0.8)),
+                table("EUR", fetchedAt, Map.of("USD", 1.1))));
+
+        final List<RateTable> tables = RateTableSnapshot.read(file);
+
+        assertEquals(2, tables.size());
+        assertEquals("USD", tables.get(0).getBase());
+        assertEquals(fetchedAt, tables.get(0).getFetchedAt());
+        assertEquals(Map.of("EUR", 0.9, "GBP", 0.8), Rates.toMap(tables.get(0).getRates()));
+        assertEquals(Map.of("USD", 1.1), Rates.toMap(tables.get(1).getRates()));
+    }
+
+    @Test
+    void test_restores_unexpired_tables_and_schedules_their_refresh() throws IOException {
+        RateTableSnapshot.write(file, List.of(
+                table("USD", Instant.now().minus(Duration.ofMinutes(5)), Map.of("EUR", 0.9)),
+                table("JPY", Instant.now().minus(Duration.ofHours(2)), Map.of("EUR", 0.006))));
+
+        assertEquals(1, snapshot.restore());
+
+        assertEquals(0.9, rateTableCache.getIfPresent("USD").rate("EUR"));
+        assertNull(rateTableCache.getIfPresent("JPY"));
+        verify(rateTableRefresher).refreshAll(List.of("USD"));
+    }
+
+    @Test
+    void test_ignores_unreadable_snapshot() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertEquals(0, snapshot.restore());
+    }
+
+    private static RateTable table(final String base, final Instant fetchedAt, final Map<String, Double> rates) {
+        return RateTable.builder()
+                .base(base)
+                .rates(Rates.of(rates))
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+
+}
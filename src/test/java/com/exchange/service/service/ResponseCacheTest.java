@@ -0,0 +1,201 @@
+package com.exchange.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.exchange.service.model.EncodedResponse;
+import com.exchange.service.model.ExchangeRateResponse;
+import com.exchange.service.model.RateTable;
+import com.exchange.service.util.CurrencyRegistry;
+import com.exchange.service.util.RateKey;
+import com.exchange.service.util.Rates;
+import com.exchange.service.util.RequestTiming;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final MappingJackson2CborHttpMessageConverter cborConverter = new MappingJackson2CborHttpMessageConverter();
+    private ExchangeRateService exchangeRateService;
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        responseCache = new ResponseCache(exchangeRateService, objectMapper, cborConverter);
+        ReflectionTestUtils.setField(responseCache, "cacheSize", 100);
+        responseCache.init();
+        when(exchangeRateService.buildResponse(any(RateTable.class), any(RateKey.class)))
+                .thenAnswer(invocation -> response(invocation.getArgument(0)));
+    }
+
+    @Test
+    void test_reuses_encoded_response_while_table_is_unchanged() {
+        final RateTable table = table(Instant.now());
+        answerWith(table);
+
+        final EncodedResponse first = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+        final EncodedResponse second = responseCache.getExchangeRatesAsync("usd", " EUR ", RequestTiming.NONE).join();
+
+        assertSame(first, second);
+        verify(exchangeRateService, times(1)).buildResponse(eq(table), any(RateKey.class));
+    }
+
+    @Test
+    void test_records_encode_phase_only_when_encoding() {
+        answerWith(table(Instant.now()));
+
+        final RequestTiming miss = RequestTiming.start();
+        responseCache.getExchangeRatesAsync("USD", "EUR", miss).join();
+        final RequestTiming hit = RequestTiming.start();
+        responseCache.getExchangeRatesAsync("USD", "EUR", hit).join();
+
+        assertTrue(miss.ran(RequestTiming.Phase.KEY));
+        assertTrue(miss.ran(RequestTiming.Phase.ENCODE));
+        assertTrue(hit.ran(RequestTiming.Phase.KEY));
+        assertFalse(hit.ran(RequestTiming.Phase.ENCODE));
+    }
+
+    @Test
+    void test_gzip_holds_same_json() throws IOException {
+        answerWith(table(Instant.now()));
+
+        final EncodedResponse encoded = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        assertEquals(0.85, objectMapper.readTree(encoded.getJson()).get("rates").get("EUR").asDouble());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded.getGzip()))) {
+            assertArrayEquals(encoded.getJson(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void test_cbor_holds_same_response_in_fewer_bytes() throws IOException {
+        answerWith(table(Instant.now()));
+
+        final EncodedResponse encoded = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        final JsonNode decoded = cborConverter.getObjectMapper().readTree(encoded.getCbor());
+        assertEquals("USD", decoded.get("base").asText());
+        assertEquals(0.85, decoded.get("rates").get("EUR").doubleValue());
+        assertTrue(encoded.getCbor().length < encoded.getJson().length);
+    }
+
+    @Test
+    void test_cbor_is_smaller_than_json_for_a_full_table() throws IOException {
+        final Map<String, Double> rates = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            rates.put(CurrencyRegistry.code(i), 0.5 + i * 1.234567);
+        }
+        final RateTable table = table(Instant.now());
+        answerWith(table);
+        when(exchangeRateService.buildResponse(eq(table), any(RateKey.class))).thenReturn(ExchangeRateResponse.builder()
+                .base("USD")
+                .rates(rates)
+                .timestamp(LocalDateTime.of(2024, 1, 2, 16, 0, 1, 123_000_000))
+                .fetchedAt(table.getFetchedAt())
+                .expiresAt(table.getFetchedAt().plusSeconds(3600))
+                .build());
+
+        final EncodedResponse encoded = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        final JsonNode decoded = cborConverter.getObjectMapper().readTree(encoded.getCbor());
+        assertEquals(30, decoded.get("rates").size());
+        assertTrue(encoded.getCbor().length < encoded.getJson().length,
+                () -> "CBOR " + encoded.getCbor().length + " bytes, JSON " + encoded.getJson().length + " bytes");
+    }
+
+    @Test
+    void test_encodes_again_when_table_is_replaced() {
+        answerWith(table(Instant.now().minusSeconds(60)));
+        final EncodedResponse first = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        answerWith(table(Instant.now()));
+        final EncodedResponse second = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        assertNotSame(first, second);
+        assertNotEquals(first.getEtag(), second.getEtag());
+    }
+
+    @Test
+    void test_derives_etag_from_json_digest() throws NoSuchAlgorithmException {
+        answerWith(table(Instant.now()));
+
+        final EncodedResponse encoded = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(encoded.getJson());
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            expected.append(String.format("%02x", digest[i]));
+        }
+        assertEquals(expected.toString(), encoded.getEtag());
+    }
+
+    @Test
+    void test_encodes_again_when_table_turns_stale() throws IOException {
+        final RateTable table = table(Instant.now());
+        answerWith(table);
+        final EncodedResponse fresh = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        when(exchangeRateService.isStale(table)).thenReturn(true);
+        final EncodedResponse stale = responseCache.getExchangeRatesAsync("USD", "EUR", RequestTiming.NONE).join();
+
+        assertNotSame(fresh, stale);
+        assertEquals(true, objectMapper.readTree(stale.getJson()).get("stale").asBoolean());
+    }
+
+    private void answerWith(final RateTable table) {
+        when(exchangeRateService.getRateTableAsync(eq(RateKey.of("USD", "EUR")), any(RequestTiming.class)))
+                .thenReturn(CompletableFuture.completedFuture(table));
+    }
+
+    private ExchangeRateResponse response(final RateTable table) {
+        return ExchangeRateResponse.builder()
+                .base(table.getBase())
+                .rates(Map.of("EUR", table.rate("EUR")))
+                .timestamp(LocalDateTime.now())
+                .stale(exchangeRateService.isStale(table))
+                .fetchedAt(table.getFetchedAt())
+                .expiresAt(table.getFetchedAt().plusSeconds(3600))
+                .build();
+    }
+
+    private static RateTable table(final Instant fetchedAt) {
+        return RateTable.builder()
+                .base("USD")
+                .rates(Rates.of(Map.of("EUR", 0.85)))
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+
+}
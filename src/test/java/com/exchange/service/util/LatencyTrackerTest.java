@@ -0,0 +1,37 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+
+    @Test
+    void test_computesPercentilesOverRecordedSamples() {
+        final LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+
+        assertEquals(50, tracker.percentile(0.5));
+        assertEquals(95, tracker.percentile(0.95));
+        assertEquals(100, tracker.percentile(1.0));
+    }
+
+    @Test
+    void test_keepsOnlyMostRecentSamples() {
+        final LatencyTracker tracker = new LatencyTracker(2);
+        tracker.record(1000);
+        tracker.record(10);
+        tracker.record(20);
+
+        assertEquals(2, tracker.sampleCount());
+        assertEquals(20, tracker.percentile(1.0));
+    }
+
+    @Test
+    void test_returnsZeroWithoutSamples() {
+        assertEquals(0, new LatencyTracker(10).percentile(0.95));
+    }
+
+}
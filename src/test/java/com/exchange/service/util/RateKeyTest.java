@@ -0,0 +1,89 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RateKeyTest {
+
+    @Test
+    void test_equivalent_queries_yield_equal_keys() {
+        final RateKey key = RateKey.of(" usd ", "gbp, EUR ,eur,,jpy");
+        final RateKey other = RateKey.of("USD", "EUR,GBP,JPY");
+
+        assertEquals(other, key);
+        assertEquals(other.hashCode(), key.hashCode());
+        assertEquals("USD:EUR,GBP,JPY", key.toString());
+        assertEquals(3, key.size());
+    }
+
+    @Test
+    void test_distinguishes_base_and_symbols() {
+        assertNotEquals(RateKey.of("USD", "EUR"), RateKey.of("GBP", "EUR"));
+        assertNotEquals(RateKey.of("USD", "EUR"), RateKey.of("USD", "EUR,GBP"));
+    }
+
+    @Test
+    void test_iterates_symbols_in_registry_order() {
+        final RateKey key = RateKey.of("USD", "JPY,EUR");
+        final List<String> symbols = new ArrayList<>();
+        for (int i = key.nextSymbol(0); i >= 0; i = key.nextSymbol(i + 1)) {
+            symbols.add(CurrencyRegistry.code(i));
+        }
+
+        assertEquals(List.of("EUR", "JPY"), symbols);
+    }
+
+    @Test
+    void test_reuses_registry_string_for_known_base() {
+        assertSame(CurrencyRegistry.code(CurrencyRegistry.indexOf("USD")), RateKey.of("usd", "EUR").getBase());
+    }
+
+    @Test
+    void test_keeps_unknown_symbols_and_unknown_base() {
+        final RateKey key = RateKey.of(" xyz1 ", "EUR,not-a-code, NOT-A-CODE");
+
+        assertEquals("XYZ1:EUR,NOT-A-CODE", key.toString());
+        assertEquals(1, key.size());
+        assertArrayEquals(new String[] {"NOT-A-CODE"}, key.getUnresolved());
+        assertSame(key, key.resolve());
+    }
+
+    @Test
+    void test_resolves_symbols_registered_after_parsing() {
+        final RateKey key = RateKey.of("USD", "qxb,EUR");
+        assertArrayEquals(new String[] {"QXB"}, key.getUnresolved());
+
+        final int index = CurrencyRegistry.register("QXB");
+        final RateKey resolved = key.resolve();
+
+        assertEquals(RateKey.of("USD", "EUR,QXB"), resolved);
+        assertEquals(0, resolved.getUnresolved().length);
+        assertEquals(2, resolved.size());
+        assertEquals(index, resolved.nextSymbol(CurrencyRegistry.indexOf("EUR") + 1));
+    }
+
+    @Test
+    void test_resolves_codes_inside_a_larger_string() {
+        assertEquals(CurrencyRegistry.indexOf("GBP"), CurrencyRegistry.indexOf("eur,gbp", 4, 7));
+        assertEquals(-1, CurrencyRegistry.indexOf("e1r", 0, 3));
+    }
+
+    @Test
+    void test_throws_exception_if_base_is_null() {
+        assertThrows(IllegalArgumentException.class, () -> RateKey.of(null, "EUR,GBP"));
+    }
+
+    @Test
+    void test_throws_exception_if_symbols_is_null() {
+        assertThrows(IllegalArgumentException.class, () -> RateKey.of("USD", null));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RatesTest {
+
+    @Test
+    void test_resolves_both_cases_of_a_registered_code_to_one_index() {
+        final int index = CurrencyRegistry.indexOf("EUR");
+
+        assertTrue(index >= 0);
+        assertEquals(index, CurrencyRegistry.indexOf("eur"));
+        assertEquals("EUR", CurrencyRegistry.code(index));
+    }
+
+    @Test
+    void test_registers_unknown_codes_once() {
+        final int index = CurrencyRegistry.register("1inch");
+
+        assertEquals(index, CurrencyRegistry.register("1INCH"));
+        assertEquals("1INCH", CurrencyRegistry.code(index));
+    }
+
+    @Test
+    void test_round_trips_rates_through_array() {
+        final double[] rates = Rates.of(Map.of("EUR", 0.9, "GBP", 0.8));
+
+        assertEquals(0.9, Rates.get(rates, "EUR"));
+        assertTrue(Double.isNaN(Rates.get(rates, "JPY")));
+        assertEquals(Map.of("EUR", 0.9, "GBP", 0.8), Rates.toMap(rates));
+        assertFalse(Rates.isEmpty(rates));
+        assertTrue(Rates.isEmpty(Rates.newArray()));
+    }
+
+}
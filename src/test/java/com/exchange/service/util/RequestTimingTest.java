@@ -0,0 +1,46 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RequestTimingTest {
+
+    @Test
+    void test_header_lists_phases_that_ran_and_total_in_millis() {
+        final RequestTiming timing = RequestTiming.start();
+        timing.record(RequestTiming.Phase.KEY, System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(1500));
+        timing.record(RequestTiming.Phase.ENCODE, System.nanoTime());
+        timing.finish();
+
+        final String header = timing.toHeader();
+
+        assertTrue(header.matches("key;dur=1\\.5\\d\\d, encode;dur=0\\.\\d{3}, total;dur=\\d+\\.\\d{3}"), header);
+        assertFalse(timing.ran(RequestTiming.Phase.FETCH));
+    }
+
+    @Test
+    void test_repeated_phase_accumulates() {
+        final RequestTiming timing = RequestTiming.start();
+        final long now = System.nanoTime();
+        timing.record(RequestTiming.Phase.CACHE, now - 1000);
+        timing.record(RequestTiming.Phase.CACHE, now - 1000);
+
+        assertTrue(timing.get(RequestTiming.Phase.CACHE) >= 2000);
+    }
+
+    @Test
+    void test_none_records_nothing() {
+        RequestTiming.NONE.record(RequestTiming.Phase.KEY, System.nanoTime() - 1000);
+        RequestTiming.NONE.finish();
+
+        assertFalse(RequestTiming.NONE.ran(RequestTiming.Phase.KEY));
+        assertEquals(0, RequestTiming.NONE.get(RequestTiming.Phase.KEY));
+        assertEquals(0, RequestTiming.NONE.getTotal());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RollingHistogramTest {
+
+    private static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+    private static final Duration FIVE_MINUTES = Duration.ofMinutes(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private RollingHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new RollingHistogram(Duration.ofSeconds(15), FIVE_MINUTES, clock::get);
+    }
+
+    @Test
+    void test_percentiles_of_recorded_samples() {
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(100, histogram.snapshot(ONE_MINUTE).getTotalCount());
+        assertEquals(50, histogram.percentile(ONE_MINUTE, 0.5), 0.5);
+        assertEquals(99, histogram.percentile(ONE_MINUTE, 0.99), 1);
+    }
+
+    @Test
+    void test_samples_leave_shorter_windows_first() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(500));
+        advance(Duration.ofMinutes(2));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertEquals(10, histogram.percentile(ONE_MINUTE, 0.999), 0.1);
+        assertEquals(500, histogram.percentile(FIVE_MINUTES, 0.999), 5);
+
+        advance(Duration.ofMinutes(6));
+        assertEquals(0, histogram.percentile(FIVE_MINUTES, 0.999));
+    }
+
+    @Test
+    void test_reused_bucket_drops_samples_of_previous_lap() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(200));
+        advance(FIVE_MINUTES);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(1, histogram.snapshot(FIVE_MINUTES).getTotalCount());
+        assertEquals(20, histogram.percentile(FIVE_MINUTES, 0.5), 0.2);
+    }
+
+    private void advance(final Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.exchange.service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    @Test
+    void test_concurrentCallersShareOneLoad() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger reportedCallers = new AtomicInteger();
+        final SingleFlight<String, String> flight = new SingleFlight<>(reportedCallers::set);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            final Future<String> first = executor.submit(() -> flight.execute("USD", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "rates";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Joining happens before executeAsync returns, so every caller is subscribed once the loop ends.
+            final List<CompletableFuture<String>> joined = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                joined.add(flight.executeAsync("USD", () -> {
+                    loads.incrementAndGet();
+                    return CompletableFuture.completedFuture("other");
+                }));
+            }
+            release.countDown();
+
+            assertEquals("rates", first.get(5, TimeUnit.SECONDS));
+            for (final CompletableFuture<String> result : joined) {
+                assertEquals("rates", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(4, reportedCallers.get());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void test_loaderExceptionIsRethrownAndFlightCleared() {
+        final SingleFlight<String, String> flight = new SingleFlight<>(callers -> { });
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("USD", () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals("rates", flight.execute("USD", () -> "rates"));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}